@@ -0,0 +1,145 @@
+package com.webonastick.build;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+/**
+ * Generates ThemeColorTable.java from the theme colors in colors.xml,
+ * so the watch face never has to look colors up by resource name.
+ * <p>
+ * Every "foreground_color_MODE_COLOR" and "background_color_MODE_COLOR"
+ * color gets an ARGB value and the alpha for its faint segments.  The
+ * faint alpha math is LEDWatchFace's FaintAlpha, done with the same
+ * float operations so the results are identical;
+ * ThemeColorTableTest checks that they are.
+ */
+public class ThemeColorTableGenerator {
+    private static final Pattern THEME_COLOR_NAME = Pattern.compile("(foreground|background)_color_[a-z_]+_[a-z_]+");
+
+    /* HSPColor's ITU-R BT.709 coefficients */
+    private static final float PR = 0.2126f;
+    private static final float PG = 0.7152f;
+    private static final float PB = 0.0722f;
+
+    /* FaintAlpha's dark red */
+    private static final int COLOR_DARK_RED = 0xff440000;
+    private static final float LED_FAINT = perceivedBrightness(COLOR_DARK_RED);
+    private static final float LCD_FAINT = LED_FAINT / 3f;
+
+    private static final String PACKAGE = "com.webonastick.watchface.ledwatch";
+    private static final String CLASS = "ThemeColorTable";
+
+    static float perceivedBrightness(int color) {
+        float r = ((color >> 16) & 0xff) / 255f;
+        float g = ((color >> 8) & 0xff) / 255f;
+        float b = (color & 0xff) / 255f;
+        return (float) Math.sqrt(r * r * PR + g * g * PG + b * b * PB);
+    }
+
+    static int faintAlphaFromForeground(int color) {
+        float brightness = perceivedBrightness(color);
+        float relFaintBrightness = LED_FAINT / brightness;
+        return Math.round(relFaintBrightness * 255f);
+    }
+
+    static int faintAlphaFromBackground(int color) {
+        float brightness = perceivedBrightness(color);
+        float newBrightness = brightness - LCD_FAINT;
+        float alpha = (brightness - newBrightness) / brightness;
+        alpha = Math.min(alpha, 0.05f);
+        return Math.round(alpha * 255f);
+    }
+
+    /* "#rrggbb" or "#aarrggbb" */
+    static int parseColor(String value) {
+        String hex = value.trim().substring(1);
+        long color = Long.parseLong(hex, 16);
+        if (hex.length() == 6) {
+            color |= 0xff000000L;
+        } else if (hex.length() != 8) {
+            throw new IllegalArgumentException("unsupported color: " + value);
+        }
+        return (int) color;
+    }
+
+    public static void generate(File colorsXml, File outputDir) throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(colorsXml);
+        NodeList colors = document.getElementsByTagName("color");
+
+        List<String> names = new ArrayList<String>();
+        List<Integer> values = new ArrayList<Integer>();
+        List<Integer> faintAlphas = new ArrayList<Integer>();
+        for (int i = 0; i < colors.getLength(); i += 1) {
+            Element element = (Element) colors.item(i);
+            String name = element.getAttribute("name");
+            Matcher matcher = THEME_COLOR_NAME.matcher(name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            int color = parseColor(element.getTextContent());
+            names.add(name);
+            values.add(color);
+            if (matcher.group(1).equals("foreground")) {
+                faintAlphas.add(faintAlphaFromForeground(color));
+            } else {
+                faintAlphas.add(faintAlphaFromBackground(color));
+            }
+        }
+
+        File dir = new File(outputDir, PACKAGE.replace('.', File.separatorChar));
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("cannot create " + dir);
+        }
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(new File(dir, CLASS + ".java")), "US-ASCII"));
+        try {
+            out.println("package " + PACKAGE + ";");
+            out.println();
+            out.println("/* generated from " + colorsXml.getName() + " by ThemeColorTableGenerator; do not edit */");
+            out.println("final class " + CLASS + " {");
+            out.println("    private " + CLASS + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    static final String[] NAMES = {");
+            for (String name : names) {
+                out.println("            \"" + name + "\",");
+            }
+            out.println("    };");
+            out.println();
+            out.println("    static final int[] COLORS = {");
+            for (int color : values) {
+                out.println("            0x" + String.format("%08x", color) + ",");
+            }
+            out.println("    };");
+            out.println();
+            out.println("    static final int[] FAINT_ALPHAS = {");
+            for (int alpha : faintAlphas) {
+                out.println("            " + alpha + ",");
+            }
+            out.println("    };");
+            out.println("}");
+        } finally {
+            out.close();
+        }
+        if (out.checkError()) {
+            throw new IOException("error writing " + CLASS + ".java");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        generate(new File(args[0]), new File(args[1]));
+    }
+}
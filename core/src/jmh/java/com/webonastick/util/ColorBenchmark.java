@@ -0,0 +1,85 @@
+package com.webonastick.util;
+
+import com.webonastick.watchface.ledwatch.FaintAlpha;
+import com.webonastick.watchface.ledwatch.Palette;
+import com.webonastick.watchface.ledwatch.PaletteCache;
+import com.webonastick.watchface.ledwatch.SwatchGrid;
+import com.webonastick.watchface.ledwatch.Utility;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HSP color math, per color, over the colors the chooser offers:
+ * the object API against the allocation-free one, and deriving a
+ * custom color's palette with and without the cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ColorBenchmark {
+    private int[] colors;
+    private int index = 0;
+    private PaletteCache paletteCache;
+
+    @Setup
+    public void setUp() {
+        colors = new int[SwatchGrid.size()];
+        for (int i = 0; i < colors.length; i += 1) {
+            colors[i] = SwatchGrid.getColor(i);
+        }
+        paletteCache = new PaletteCache(colors.length);
+    }
+
+    private int nextColor() {
+        index = (index + 1) % colors.length;
+        return colors[index];
+    }
+
+    @Benchmark
+    public float perceivedBrightnessObject() {
+        return HSPColor.fromRGB(nextColor()).perceivedBrightness();
+    }
+
+    @Benchmark
+    public float perceivedBrightness() {
+        return HSPColor.perceivedBrightness(nextColor());
+    }
+
+    @Benchmark
+    public int withBrightnessObject() {
+        HSPColor color = HSPColor.fromRGB(nextColor());
+        color.setPerceivedBrightness(0.5f);
+        return 0xff000000 |
+                (Math.round(color.red() * 255f) << 16) |
+                (Math.round(color.green() * 255f) << 8) |
+                Math.round(color.blue() * 255f);
+    }
+
+    @Benchmark
+    public int withBrightness() {
+        return HSPColor.withBrightness(nextColor(), 0.5f);
+    }
+
+    @Benchmark
+    public int faintAlpha() {
+        return FaintAlpha.fromForeground(nextColor());
+    }
+
+    @Benchmark
+    public Palette deriveLcdPalette() {
+        return Palette.derive(Utility.LEDWatchThemeMode.LCD, nextColor());
+    }
+
+    @Benchmark
+    public Palette cachedLcdPalette() {
+        return paletteCache.get(Utility.LEDWatchThemeMode.LCD, nextColor());
+    }
+}
@@ -0,0 +1,86 @@
+package com.webonastick.watchface.ledwatch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What an interactive frame costs before anything is drawn: making
+ * the state for the current time and building every field's text the
+ * way LEDWatchFaceRenderer.updateFields does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FrameTextBenchmark {
+    private static final DSEGFont FONT = DSEGFont.getDefaultFont(Utility.LEDWatchThemeMode.LED);
+
+    private WatchFaceStateFactory factory;
+    private WeekdayLabels weekdayLabels;
+    private long timeMillis;
+
+    private final SegmentText left = new SegmentText(2, 1);
+    private final SegmentText right = new SegmentText(2, 1);
+    private final SegmentText topLeft = new SegmentText(3, 1);
+    private final SegmentText topRight = new SegmentText(3, 1);
+    private final SegmentText bottomLeft = new SegmentText(4, 1);
+    private final SegmentText bottomRight = new SegmentText(3, 1);
+
+    @Setup
+    public void setUp() {
+        TimeZone timeZone = TimeZone.getTimeZone("America/New_York");
+        factory = new WatchFaceStateFactory(timeZone);
+        weekdayLabels = new WeekdayLabels(Locale.US);
+        Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.set(2019, Calendar.JUNE, 30, 10, 58, 50);
+        timeMillis = calendar.getTimeInMillis();
+    }
+
+    /* a new second every call, so the factory never returns the last state */
+    @Benchmark
+    public WatchFaceState createState() {
+        timeMillis += 1000;
+        return factory.create(timeMillis, 89, false, false, true,
+                Utility.LEDWatchThemeMode.LED, Utility.LEDWatchThemeColor.BLUE, 0, FONT);
+    }
+
+    @Benchmark
+    public int buildFieldText() {
+        timeMillis += 1000;
+        WatchFaceState state = factory.create(timeMillis, 89, false, false, true,
+                Utility.LEDWatchThemeMode.LED, Utility.LEDWatchThemeColor.BLUE, 0, FONT);
+        left.clear().appendTwoDigitsBlankPadded(state.getHour());
+        right.clear().appendTwoDigits(state.getMinute());
+        topLeft.clear().append(weekdayLabels.get(state.getDayOfWeek()));
+        topRight.clear().append(SegmentText.BLANK).appendTwoDigitsBlankPadded(state.getDayOfMonth());
+        bottomLeft.clear().appendBatteryPercentage(state.getBatteryPercentage(), false, false);
+        bottomRight.clear().append(SegmentText.BLANK).appendTwoDigits(state.getSecond());
+        return left.length() + right.length() + topLeft.length() + topRight.length() +
+                bottomLeft.length() + bottomRight.length();
+    }
+
+    /* what building the same text with Strings used to cost */
+    @Benchmark
+    public int buildFieldTextWithStrings() {
+        timeMillis += 1000;
+        WatchFaceState state = factory.create(timeMillis, 89, false, false, true,
+                Utility.LEDWatchThemeMode.LED, Utility.LEDWatchThemeColor.BLUE, 0, FONT);
+        String hours = LayoutSolver.addLetterSpacing(String.format(Locale.US, "%2d", state.getHour()), 1);
+        String minutes = LayoutSolver.addLetterSpacing(String.format(Locale.US, "%02d", state.getMinute()), 1);
+        String day = LayoutSolver.addLetterSpacing(new String(weekdayLabels.get(state.getDayOfWeek())), 1);
+        String date = LayoutSolver.addLetterSpacing(String.format(Locale.US, "!%2d", state.getDayOfMonth()), 1);
+        String battery = LayoutSolver.addLetterSpacing(state.getBatteryPercentage() + "%", 1);
+        String seconds = LayoutSolver.addLetterSpacing(String.format(Locale.US, "!%02d", state.getSecond()), 1);
+        return hours.length() + minutes.length() + day.length() + date.length() + battery.length() +
+                seconds.length();
+    }
+}
@@ -0,0 +1,83 @@
+package com.webonastick.watchface.ledwatch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Layout solving, measured with a {@link FixedPitchMeasurer} so only
+ * the solver's own arithmetic and caching count; real text
+ * measurement is in the wear module's instrumented tests.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LayoutSolverBenchmark {
+    private static final String SEVEN = "fonts/DSEG7Classic-BoldItalic.ttf";
+    private static final String FOURTEEN = "fonts/DSEG14Classic-BoldItalic.ttf";
+
+    private LayoutSolver solver;
+    private LayoutSolver.Key interactive;
+    private LayoutSolver.Key ambient;
+    private int surfaceWidth = 320;
+
+    private static LayoutSolver.Key key(boolean ambient, int surfaceWidth) {
+        LayoutSolver.Key key = new LayoutSolver.Key();
+        key.themeMode = Utility.LEDWatchThemeMode.LED;
+        key.ambient = ambient;
+        key.round = true;
+        key.surfaceWidth = surfaceWidth;
+        key.surfaceHeight = surfaceWidth;
+        key.pixelDensity = 2f;
+        key.sevenSegmentFont = SEVEN;
+        key.fourteenSegmentFont = FOURTEEN;
+        key.sixthsOfAPieFont = SEVEN;
+        key.amPmFont = FOURTEEN;
+        key.letterSpacing = 1;
+        key.letterSpacing2 = 1;
+        key.smallerTextSizeRatio = 0.5f;
+        key.lineSpacingRatio = 0.25f;
+        key.leftSegments = "88";
+        key.middleSegments = ":";
+        key.rightSegments = "88";
+        key.topLeftSegments = "~~";
+        key.topRightSegments = "~88";
+        key.bottomLeftSegments = "888%";
+        key.bottomRightSegments = "~88";
+        return key;
+    }
+
+    @Setup
+    public void setUp() {
+        solver = new LayoutSolver(new FixedPitchMeasurer());
+        interactive = key(false, 390);
+        ambient = key(true, 390);
+        solver.solve(interactive);
+        solver.solve(ambient);
+    }
+
+    /* e.g. toggling ambient mode: both layouts are remembered */
+    @Benchmark
+    public LayoutSpec solveRemembered() {
+        solver.solve(interactive);
+        return solver.solve(ambient);
+    }
+
+    /* a surface size never seen before, so nothing is remembered but some text metrics */
+    @Benchmark
+    public LayoutSpec solveNew() {
+        surfaceWidth = surfaceWidth == 480 ? 320 : surfaceWidth + 1;
+        return solver.solve(key(false, surfaceWidth));
+    }
+
+    @Benchmark
+    public String addLetterSpacing() {
+        return LayoutSolver.addLetterSpacing("888%", 2);
+    }
+}
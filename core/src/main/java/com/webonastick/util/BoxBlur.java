@@ -0,0 +1,103 @@
+package com.webonastick.util;
+
+/**
+ * Approximates a Gaussian blur of a single channel with three passes
+ * of a box blur in each direction, which costs the same no matter how
+ * wide the blur is.  Values outside the image are taken to be zero.
+ * <p>
+ * See http://blog.ivank.net/fastest-gaussian-blur.html
+ */
+public class BoxBlur {
+    private static final int PASSES = 3;
+
+    /* what Skia uses to turn a shadow layer radius into a standard deviation */
+    public static float radiusToSigma(float radius) {
+        return radius > 0 ? 0.57735f * radius + 0.5f : 0f;
+    }
+
+    /* box radii whose three passes approximate the given standard deviation */
+    static int[] boxRadii(float sigma) {
+        int[] radii = new int[PASSES];
+        if (sigma <= 0) {
+            return radii;
+        }
+        float idealWidth = (float) Math.sqrt(12f * sigma * sigma / PASSES + 1);
+        int lower = (int) Math.floor(idealWidth);
+        if (lower % 2 == 0) {
+            lower -= 1;
+        }
+        int upper = lower + 2;
+        float idealCount = (12f * sigma * sigma - PASSES * lower * lower - 4f * PASSES * lower - 3f * PASSES)
+                / (-4f * lower - 4f);
+        int count = Math.round(idealCount);
+        for (int i = 0; i < PASSES; i += 1) {
+            radii[i] = ((i < count ? lower : upper) - 1) / 2;
+        }
+        return radii;
+    }
+
+    /* how far blur() spreads a value; everything further away stays zero */
+    public static int reach(float sigma) {
+        int reach = 0;
+        for (int radius : boxRadii(sigma)) {
+            reach += radius;
+        }
+        return reach;
+    }
+
+    /**
+     * Blurs width * height values, stored row by row, in place.
+     */
+    public static void blur(int[] values, int width, int height, float sigma) {
+        int[] radii = boxRadii(sigma);
+        int[] scratch = new int[values.length];
+        for (int radius : radii) {
+            if (radius <= 0) {
+                continue;
+            }
+            blurHorizontally(values, scratch, width, height, radius);
+            blurVertically(scratch, values, width, height, radius);
+        }
+    }
+
+    private static void blurHorizontally(int[] in, int[] out, int width, int height, int radius) {
+        int size = radius * 2 + 1;
+        int half = size / 2;
+        for (int y = 0; y < height; y += 1) {
+            int row = y * width;
+            int sum = 0;
+            for (int x = 0; x < radius && x < width; x += 1) {
+                sum += in[row + x];
+            }
+            for (int x = 0; x < width; x += 1) {
+                if (x + radius < width) {
+                    sum += in[row + x + radius];
+                }
+                if (x - radius - 1 >= 0) {
+                    sum -= in[row + x - radius - 1];
+                }
+                out[row + x] = (sum + half) / size;
+            }
+        }
+    }
+
+    private static void blurVertically(int[] in, int[] out, int width, int height, int radius) {
+        int size = radius * 2 + 1;
+        int half = size / 2;
+        for (int x = 0; x < width; x += 1) {
+            int sum = 0;
+            for (int y = 0; y < radius && y < height; y += 1) {
+                sum += in[y * width + x];
+            }
+            for (int y = 0; y < height; y += 1) {
+                if (y + radius < height) {
+                    sum += in[(y + radius) * width + x];
+                }
+                if (y - radius - 1 >= 0) {
+                    sum -= in[(y - radius - 1) * width + x];
+                }
+                out[y * width + x] = (sum + half) / size;
+            }
+        }
+    }
+}
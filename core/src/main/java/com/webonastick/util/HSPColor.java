@@ -1,7 +1,5 @@
 package com.webonastick.util;
 
-import android.graphics.Color;
-
 public class HSPColor {
     private float h = 0f;
     private float s = 0f;
@@ -156,7 +154,7 @@ public class HSPColor {
         setRGB(clamp(r) / 255f, clamp(g) / 255f, clamp(b) / 255f);
     }
     public void setRGB(int color) {
-        setRGB(Color.red(color) / 255f, Color.green(color) / 255f, Color.blue(color) / 255f);
+        setRGB(((color >> 16) & 0xff) / 255f, ((color >> 8) & 0xff) / 255f, (color & 0xff) / 255f);
     }
     
     public void setRed(float r) {
@@ -248,14 +246,14 @@ public class HSPColor {
     }
     public static HSPColor fromRGB(int color) {
         return HSPColor.fromRGB(
-                Color.red(color) / 255f,
-                Color.green(color) / 255f,
-                Color.blue(color) / 255f
+                ((color >> 16) & 0xff) / 255f,
+                ((color >> 8) & 0xff) / 255f,
+                (color & 0xff) / 255f
         );
     }
 
     public static float getPerceivedBrightnessFromRGB(int color) {
-        return HSPColor.fromRGB(color).perceivedBrightness();
+        return perceivedBrightness(color);
     }
     public static float getPerceivedBrightnessFromRGB(int r, int g, int b) {
         return HSPColor.fromRGB(r, g, b).perceivedBrightness();
@@ -264,6 +262,150 @@ public class HSPColor {
         return HSPColor.fromRGB(r, g, b).perceivedBrightness();
     }
     
+    // BEGIN PRIMITIVE API
+
+    /*
+     * Static versions of the above working on packed ARGB ints, for
+     * code that can't afford an object per color.  They do the same
+     * float operations in the same order, so perceivedBrightness() is
+     * identical to the object API and the conversions to ARGB come out
+     * within EPSILON of it (in practice, identical).
+     */
+
+    /* most any channel of a converted color may differ from the object API, out of 255 */
+    public static final int EPSILON = 1;
+
+    /* (i / 255f) squared, as calculateHSP() computes it */
+    private static final float[] SQUARED = new float[256];
+
+    static {
+        for (int i = 0; i < 256; i += 1) {
+            float x = i / 255f;
+            SQUARED[i] = x * x;
+        }
+    }
+
+    public static float perceivedBrightness(int argb) {
+        return (float)Math.sqrt(SQUARED[(argb >> 16) & 0xff] * PR +
+                SQUARED[(argb >> 8) & 0xff] * PG +
+                SQUARED[argb & 0xff] * PB);
+    }
+
+    public static void perceivedBrightness(int[] argb, float[] result) {
+        for (int i = 0; i < argb.length; i += 1) {
+            result[i] = perceivedBrightness(argb[i]);
+        }
+    }
+
+    /* opaque */
+    public static int hspToArgb(float h, float s, float p) {
+        return hspToRgb(clamp(h), clamp(s), clamp(p)) | 0xff000000;
+    }
+
+    /* the same hue and saturation at another perceived brightness, keeping alpha */
+    public static int withBrightness(int argb, float p) {
+        float r = ((argb >> 16) & 0xff) / 255f;
+        float g = ((argb >> 8) & 0xff) / 255f;
+        float b = (argb & 0xff) / 255f;
+        float h;
+        float s;
+        if (r == g && r == b) {
+            h = 0f;
+            s = 0f;
+        } else if (r >= g && r >= b) {
+            if (b >= g) {
+                h = 1f - 1f/6f * (b - g) / (r - g); s = 1f - g / r;
+            } else {
+                h = 1f/6f * (g - b) / (r - b); s = 1f - b / r;
+            }
+        } else if (g >= r && g >= b) {
+            if (r >= b) {
+                h = 2f/6f - 1f/6f * (r - b) / (g - b); s = 1f - b / g;
+            } else {
+                h = 2f/6f + 1f/6f * (b - r) / (g - r); s = 1f - r / g;
+            }
+        } else {
+            if (g >= r) {
+                h = 4f/6f - 1f/6f * (g - r) / (b - r); s = 1f - r / b;
+            } else {
+                h = 4f/6f + 1f/6f * (r - g) / (b - g); s = 1f - g / b;
+            }
+        }
+        return hspToRgb(h, s, clamp(p)) | (argb & 0xff000000);
+    }
+
+    public static void withBrightness(int[] argb, float p, int[] result) {
+        for (int i = 0; i < argb.length; i += 1) {
+            result[i] = withBrightness(argb[i], p);
+        }
+    }
+
+    /*
+     * calculateRGB() with the six hue sextants folded into one path:
+     * each sextant only decides which channels are the largest,
+     * middle, and smallest, so there's one square root per call.
+     */
+    private static int hspToRgb(float h, float s, float p) {
+        float minOverMax = 1f - s;
+        float pMax, pMid, pMin;
+        int sextant;
+        if (h < 1f/6f) {  // R > G > B
+            h = 6f * (h - 0f/6f);
+            sextant = 0; pMax = PR; pMid = PG; pMin = PB;
+        } else if (h < 2f/6f) {  // G > R > B
+            h = 6f * (-h + 2f/6f);
+            sextant = 1; pMax = PG; pMid = PR; pMin = PB;
+        } else if (h < 3f/6f) {  // G > B > R
+            h = 6f * (h - 2f/6f);
+            sextant = 2; pMax = PG; pMid = PB; pMin = PR;
+        } else if (h < 4f/6f) {  // B > G > R
+            h = 6f * (-h + 4f/6f);
+            sextant = 3; pMax = PB; pMid = PG; pMin = PR;
+        } else if (h < 5f/6f) {  // B > R > G
+            h = 6f * (h - 4f/6f);
+            sextant = 4; pMax = PB; pMid = PR; pMin = PG;
+        } else {  // R > B > G
+            h = 6f * (-h + 6f/6f);
+            sextant = 5; pMax = PR; pMid = PB; pMin = PG;
+        }
+
+        float max, mid, min;
+        if (minOverMax > 0f) {
+            float part = 1f + h * (1f / minOverMax - 1f);
+            min = p / (float)Math.sqrt(pMax / minOverMax / minOverMax + pMid * part * part + pMin);
+            max = min / minOverMax;
+            mid = min + h * (max - min);
+        } else {
+            max = (float)Math.sqrt(p * p / (pMax + pMid * h * h));
+            mid = max * h;
+            min = 0f;
+        }
+
+        int iMax = toByte(max);
+        int iMid = toByte(mid);
+        int iMin = toByte(min);
+        switch (sextant) {
+            case 0:
+                return (iMax << 16) | (iMid << 8) | iMin;
+            case 1:
+                return (iMid << 16) | (iMax << 8) | iMin;
+            case 2:
+                return (iMin << 16) | (iMax << 8) | iMid;
+            case 3:
+                return (iMin << 16) | (iMid << 8) | iMax;
+            case 4:
+                return (iMid << 16) | (iMin << 8) | iMax;
+            default:
+                return (iMax << 16) | (iMin << 8) | iMid;
+        }
+    }
+
+    private static int toByte(float x) {
+        return Math.round(clamp(x) * 255f);
+    }
+
+    // END PRIMITIVE API
+
     private static int clamp(int x) {
         if (x < 0) {
             return 0;
@@ -0,0 +1,229 @@
+package com.webonastick.watchface;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Remembers a few numbers about each of the last frames a watch face
+ * drew, for finding out where stutter and battery drain come from on
+ * a user's watch.
+ * <p>
+ * Frames are recorded into fixed-size arrays, without allocating or
+ * locking, by one thread; any thread can take a {@link Snapshot}.  A
+ * snapshot leaves out whatever the recording thread overwrote while
+ * it was being copied, so each frame in it is complete.  Every access
+ * to the arrays is volatile, which costs a few barriers a frame but
+ * is what makes that check sound.
+ */
+public class FrameMetrics {
+    /* for frames no timer scheduled, e.g. after a time tick */
+    public static final long NOT_SCHEDULED = -1;
+
+    private static final int FLAG_AMBIENT = 1;
+    private static final int FLAG_BACKGROUND_REBUILT = 2;
+
+    private final int capacity;
+    private final AtomicLongArray startNanos;
+    private final AtomicLongArray drawNanos;
+    private final AtomicLongArray intervalNanos;
+    private final AtomicLongArray wakeDeltaNanos;
+    private final AtomicIntegerArray flags;
+
+    /* frames begun and finished recording; written only by the recording thread */
+    private volatile long started = 0;
+    private volatile long count = 0;
+    private long lastStartNanos = -1;
+
+    public FrameMetrics(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.startNanos = new AtomicLongArray(capacity);
+        this.drawNanos = new AtomicLongArray(capacity);
+        this.intervalNanos = new AtomicLongArray(capacity);
+        this.wakeDeltaNanos = new AtomicLongArray(capacity);
+        this.flags = new AtomicIntegerArray(capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Records a frame drawn from startNanos to endNanos, e.g. from
+     * SystemClock.elapsedRealtimeNanos.  wakeDeltaNanos is how late
+     * the timer that asked for the frame fired, or
+     * {@link #NOT_SCHEDULED}.
+     */
+    public void record(long startNanos, long endNanos, long wakeDeltaNanos,
+                       boolean ambient, boolean backgroundRebuilt) {
+        long index = count;
+        int slot = (int) (index % capacity);
+        started = index + 1;
+        this.startNanos.set(slot, startNanos);
+        this.drawNanos.set(slot, endNanos - startNanos);
+        this.intervalNanos.set(slot, lastStartNanos < 0 ? -1 : startNanos - lastStartNanos);
+        this.wakeDeltaNanos.set(slot, wakeDeltaNanos);
+        this.flags.set(slot, (ambient ? FLAG_AMBIENT : 0) | (backgroundRebuilt ? FLAG_BACKGROUND_REBUILT : 0));
+        lastStartNanos = startNanos;
+        count = index + 1;
+    }
+
+    /* the frames still in the buffer, oldest first */
+    public Snapshot snapshot() {
+        long end = count;
+        long start = Math.max(0, end - capacity);
+        int size = (int) (end - start);
+        long[] startNanos = new long[size];
+        long[] drawNanos = new long[size];
+        long[] intervalNanos = new long[size];
+        long[] wakeDeltaNanos = new long[size];
+        byte[] flags = new byte[size];
+        for (int i = 0; i < size; i += 1) {
+            int slot = (int) ((start + i) % capacity);
+            startNanos[i] = this.startNanos.get(slot);
+            drawNanos[i] = this.drawNanos.get(slot);
+            intervalNanos[i] = this.intervalNanos.get(slot);
+            wakeDeltaNanos[i] = this.wakeDeltaNanos.get(slot);
+            flags[i] = (byte) this.flags.get(slot);
+        }
+
+        /* frames begun since may have overwritten the oldest ones copied */
+        long valid = Math.max(start, started - capacity);
+        int skip = (int) Math.min(size, valid - start);
+        return new Snapshot(end, Arrays.copyOfRange(startNanos, skip, size),
+                Arrays.copyOfRange(drawNanos, skip, size), Arrays.copyOfRange(intervalNanos, skip, size),
+                Arrays.copyOfRange(wakeDeltaNanos, skip, size), Arrays.copyOfRange(flags, skip, size));
+    }
+
+    /**
+     * Frames copied out of a {@link FrameMetrics}, oldest first.
+     * Times are in nanoseconds; intervals and wake deltas are -1 where
+     * there are none.
+     */
+    public static final class Snapshot {
+        private final long count;
+        private final long[] startNanos;
+        private final long[] drawNanos;
+        private final long[] intervalNanos;
+        private final long[] wakeDeltaNanos;
+        private final byte[] flags;
+
+        Snapshot(long count, long[] startNanos, long[] drawNanos, long[] intervalNanos,
+                 long[] wakeDeltaNanos, byte[] flags) {
+            this.count = count;
+            this.startNanos = startNanos;
+            this.drawNanos = drawNanos;
+            this.intervalNanos = intervalNanos;
+            this.wakeDeltaNanos = wakeDeltaNanos;
+            this.flags = flags;
+        }
+
+        /* frames ever recorded, including those no longer in the buffer */
+        public long getCount() {
+            return count;
+        }
+
+        public int size() {
+            return drawNanos.length;
+        }
+
+        public long getStartNanos(int i) {
+            return startNanos[i];
+        }
+
+        public long getDrawNanos(int i) {
+            return drawNanos[i];
+        }
+
+        public long getIntervalNanos(int i) {
+            return intervalNanos[i];
+        }
+
+        public long getWakeDeltaNanos(int i) {
+            return wakeDeltaNanos[i];
+        }
+
+        public boolean isAmbient(int i) {
+            return (flags[i] & FLAG_AMBIENT) != 0;
+        }
+
+        public boolean isBackgroundRebuilt(int i) {
+            return (flags[i] & FLAG_BACKGROUND_REBUILT) != 0;
+        }
+
+        /* nearest-rank percentile, leaving out -1s; -1 if there are no values */
+        static long percentile(long[] values, int percent) {
+            long[] sorted = new long[values.length];
+            int n = 0;
+            for (long value : values) {
+                if (value >= 0) {
+                    sorted[n] = value;
+                    n += 1;
+                }
+            }
+            if (n == 0) {
+                return -1;
+            }
+            Arrays.sort(sorted, 0, n);
+            int rank = (n * percent + 99) / 100;
+            return sorted[Math.max(0, rank - 1)];
+        }
+
+        public long getDrawNanosPercentile(int percent) {
+            return percentile(drawNanos, percent);
+        }
+
+        public long getIntervalNanosPercentile(int percent) {
+            return percentile(intervalNanos, percent);
+        }
+
+        public long getWakeDeltaNanosPercentile(int percent) {
+            return percentile(wakeDeltaNanos, percent);
+        }
+
+        private static String millis(long nanos) {
+            return nanos < 0 ? "-" : String.format(Locale.US, "%.2f", nanos / 1000000.0);
+        }
+
+        private void printPercentiles(PrintWriter writer, String name, long[] values) {
+            writer.println(String.format(Locale.US, "  %-12s p50 %8s  p90 %8s  p95 %8s  p99 %8s  max %8s ms",
+                    name, millis(percentile(values, 50)), millis(percentile(values, 90)),
+                    millis(percentile(values, 95)), millis(percentile(values, 99)),
+                    millis(percentile(values, 100))));
+        }
+
+        /* percentiles over the whole buffer, then the last frames, e.g. for Service.dump */
+        public void dump(PrintWriter writer, int lastFrames) {
+            int ambient = 0;
+            int backgroundsRebuilt = 0;
+            for (int i = 0; i < size(); i += 1) {
+                ambient += isAmbient(i) ? 1 : 0;
+                backgroundsRebuilt += isBackgroundRebuilt(i) ? 1 : 0;
+            }
+            writer.println(String.format(Locale.US,
+                    "Frame metrics: %d frames recorded, last %d: %d ambient, %d rebuilt backgrounds",
+                    count, size(), ambient, backgroundsRebuilt));
+            printPercentiles(writer, "draw", drawNanos);
+            printPercentiles(writer, "interval", intervalNanos);
+            printPercentiles(writer, "wake delta", wakeDeltaNanos);
+
+            int first = Math.max(0, size() - lastFrames);
+            writer.println(String.format(Locale.US, "Last %d frames (ms):", size() - first));
+            writer.println("  draw     interval  wake delta  flags");
+            for (int i = first; i < size(); i += 1) {
+                writer.println(String.format(Locale.US, "  %-8s %-9s %-11s %s%s",
+                        millis(drawNanos[i]), millis(intervalNanos[i]), millis(wakeDeltaNanos[i]),
+                        isAmbient(i) ? "ambient " : "", isBackgroundRebuilt(i) ? "background" : ""));
+            }
+        }
+    }
+}
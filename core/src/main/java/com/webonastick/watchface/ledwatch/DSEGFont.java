@@ -0,0 +1,113 @@
+package com.webonastick.watchface.ledwatch;
+
+/**
+ * One of the DSEG font variants shipped in assets/fonts: a family,
+ * size, weight, and style, each available with seven and fourteen
+ * segments.
+ */
+public final class DSEGFont {
+    private final Utility.DSEGFontFamily family;
+    private final Utility.DSEGFontSize size;
+    private final Utility.DSEGFontWeight weight;
+    private final Utility.DSEGFontStyle style;
+
+    public DSEGFont(Utility.DSEGFontFamily family, Utility.DSEGFontSize size,
+                    Utility.DSEGFontWeight weight, Utility.DSEGFontStyle style) {
+        if (family == null || size == null || weight == null || style == null) {
+            throw new NullPointerException();
+        }
+        this.family = family;
+        this.size = size;
+        this.weight = weight;
+        this.style = style;
+    }
+
+    /* the font each theme used before fonts became selectable */
+    public static DSEGFont getDefaultFont(Utility.LEDWatchThemeMode themeMode) {
+        Utility.DSEGFontWeight weight;
+        Utility.DSEGFontFamily family = Utility.DSEGFontFamily.CLASSIC;
+        switch (themeMode) {
+            case VINTAGE_LED:
+                family = Utility.DSEGFontFamily.MODERN;
+                weight = Utility.DSEGFontWeight.LIGHT;
+                break;
+            case LCD:
+                weight = Utility.DSEGFontWeight.BOLD;
+                break;
+            default:
+                weight = Utility.DSEGFontWeight.REGULAR;
+                break;
+        }
+        return new DSEGFont(family, Utility.DSEGFontSize.NORMAL, weight, Utility.DSEGFontStyle.ITALIC);
+    }
+
+    public Utility.DSEGFontFamily getFamily() {
+        return family;
+    }
+
+    public Utility.DSEGFontSize getSize() {
+        return size;
+    }
+
+    public Utility.DSEGFontWeight getWeight() {
+        return weight;
+    }
+
+    public Utility.DSEGFontStyle getStyle() {
+        return style;
+    }
+
+    public DSEGFont withFamily(Utility.DSEGFontFamily family) {
+        return new DSEGFont(family, size, weight, style);
+    }
+
+    public DSEGFont withSize(Utility.DSEGFontSize size) {
+        return new DSEGFont(family, size, weight, style);
+    }
+
+    public DSEGFont withWeight(Utility.DSEGFontWeight weight) {
+        return new DSEGFont(family, size, weight, style);
+    }
+
+    public DSEGFont withStyle(Utility.DSEGFontStyle style) {
+        return new DSEGFont(family, size, weight, style);
+    }
+
+    /* e.g. "fonts/DSEG7ClassicMini-BoldItalic.ttf" */
+    public String getFilename(Utility.DSEGFontSegments segments) {
+        return "fonts/DSEG" +
+                segments.getFilenamePortion() +
+                family.getFilenamePortion() +
+                size.getFilenamePortion() +
+                weight.getFilenamePortion() +
+                style.getFilenamePortion() +
+                ".ttf";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DSEGFont)) {
+            return false;
+        }
+        DSEGFont f = (DSEGFont) o;
+        return family == f.family && size == f.size && weight == f.weight && style == f.style;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = family.hashCode();
+        h = 31 * h + size.hashCode();
+        h = 31 * h + weight.hashCode();
+        h = 31 * h + style.hashCode();
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "DSEGFont{" + family.resourceName + " " + size.resourceName + " " +
+                weight.resourceName + " " + style.resourceName + "}";
+    }
+}
@@ -0,0 +1,40 @@
+package com.webonastick.watchface.ledwatch;
+
+import com.webonastick.util.HSPColor;
+
+/**
+ * Calculates the alpha transparency at which to display the "faint"
+ * segments so that they are visible enough.
+ * <p>
+ * This value will be higher for darker colors, and lower for brighter
+ * colors.  Theme colors have theirs precomputed in the wear module's
+ * generated ThemeColorTable; this is for everything else.
+ */
+public final class FaintAlpha {
+    private FaintAlpha() {
+    }
+
+    /* color of faint segments, after transparency applied, will be about as bright as this */
+    private static final int COLOR_DARK_RED = 0xff440000;
+
+    static final float LED_FAINT = HSPColor.perceivedBrightness(COLOR_DARK_RED);
+    static final float LCD_FAINT = LED_FAINT / 3f;
+
+    /* for segments drawn in a color over black */
+    public static int fromForeground(int color) {
+        float brightness = HSPColor.perceivedBrightness(color);
+        float relFaintBrightness = LED_FAINT / brightness;
+        int result = Math.round(relFaintBrightness * 255f);
+        return result;
+    }
+
+    /* for black segments drawn over a color */
+    public static int fromBackground(int color) {
+        float brightness = HSPColor.perceivedBrightness(color);
+        float newBrightness = brightness - LCD_FAINT;
+        float alpha = (brightness - newBrightness) / brightness;
+        alpha = Math.min(alpha, 0.05f);
+        int result = Math.round(alpha * 255f);
+        return result;
+    }
+}
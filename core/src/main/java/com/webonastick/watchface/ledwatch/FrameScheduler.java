@@ -0,0 +1,58 @@
+package com.webonastick.watchface.ledwatch;
+
+import java.util.TimeZone;
+
+/**
+ * Works out when the next visible change to the interactive watch
+ * face happens, so the engine can sleep until exactly then instead of
+ * waking up on a fixed interval.
+ * <p>
+ * The minute always rolls over; the seconds tick and the colon's blink
+ * edges only count if they're shown.  Changes that can't be predicted,
+ * like the battery level, redraw on their own.
+ */
+public class FrameScheduler {
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long MILLIS_PER_MINUTE = 60L * MILLIS_PER_SECOND;
+
+    private boolean showSeconds;
+    private boolean blinkingColon;
+
+    public FrameScheduler(boolean showSeconds, boolean blinkingColon) {
+        this.showSeconds = showSeconds;
+        this.blinkingColon = blinkingColon;
+    }
+
+    public void setShowSeconds(boolean showSeconds) {
+        this.showSeconds = showSeconds;
+    }
+
+    public void setBlinkingColon(boolean blinkingColon) {
+        this.blinkingColon = blinkingColon;
+    }
+
+    /* wall clock time of the first visible change after timeMillis */
+    public long getNextChangeMillis(long timeMillis, TimeZone timeZone) {
+        long localMillis = timeMillis + timeZone.getOffset(timeMillis);
+
+        long millisOfMinute = localMillis % MILLIS_PER_MINUTE;
+        if (millisOfMinute < 0) {
+            millisOfMinute += MILLIS_PER_MINUTE;
+        }
+        long next = timeMillis + MILLIS_PER_MINUTE - millisOfMinute;
+
+        long millisOfSecond = millisOfMinute % MILLIS_PER_SECOND;
+        if (showSeconds || blinkingColon) {
+            next = Math.min(next, timeMillis + MILLIS_PER_SECOND - millisOfSecond);
+        }
+        if (blinkingColon && millisOfSecond < WatchFaceStateFactory.BLINK_OFF_MILLIS) {
+            next = Math.min(next, timeMillis + WatchFaceStateFactory.BLINK_OFF_MILLIS - millisOfSecond);
+        }
+        return next;
+    }
+
+    /* how long to sleep from timeMillis until the next visible change */
+    public long getDelayMillis(long timeMillis, TimeZone timeZone) {
+        return getNextChangeMillis(timeMillis, timeZone) - timeMillis;
+    }
+}
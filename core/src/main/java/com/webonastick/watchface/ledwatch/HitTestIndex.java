@@ -0,0 +1,75 @@
+package com.webonastick.watchface.ledwatch;
+
+import java.util.Arrays;
+
+/**
+ * Maps screen coordinates to the {@link Utility.Zone} a tap there is
+ * meant for, using a grid of small cells.
+ * <p>
+ * Built from rectangles once per layout; later rectangles win where
+ * they overlap.  Lookups are an array access and never allocate, no
+ * matter how many zones there are.
+ */
+public class HitTestIndex {
+    /* 4x4 pixel cells; a cell belongs to whatever covers its center */
+    private static final int CELL_SHIFT = 2;
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    private static final Utility.Zone[] ZONES = Utility.Zone.values();
+
+    private int columns = 0;
+    private int rows = 0;
+
+    /* zone ordinal plus one, or zero where there's no zone */
+    private byte[] cells = new byte[0];
+
+    /* empties the index for a new surface size */
+    public void reset(int width, int height) {
+        columns = Math.max(0, (width + CELL_SIZE - 1) >> CELL_SHIFT);
+        rows = Math.max(0, (height + CELL_SIZE - 1) >> CELL_SHIFT);
+        int length = columns * rows;
+        if (cells.length < length) {
+            cells = new byte[length];
+        } else {
+            Arrays.fill(cells, 0, length, (byte) 0);
+        }
+    }
+
+    public void fill(float left, float top, float right, float bottom, Utility.Zone zone) {
+        int firstColumn = Math.max(0, firstCell(left));
+        int lastColumn = Math.min(columns, firstCell(right));
+        int firstRow = Math.max(0, firstCell(top));
+        int lastRow = Math.min(rows, firstCell(bottom));
+        byte value = (byte) (zone.ordinal() + 1);
+        for (int row = firstRow; row < lastRow; row += 1) {
+            int offset = row * columns;
+            for (int column = firstColumn; column < lastColumn; column += 1) {
+                cells[offset + column] = value;
+            }
+        }
+    }
+
+    /* first cell whose center is at or past the coordinate */
+    private static int firstCell(float coordinate) {
+        return (int) Math.ceil(coordinate / CELL_SIZE - 0.5f);
+    }
+
+    /* null outside the index or where no zone was filled in */
+    public Utility.Zone getZone(int x, int y) {
+        if (x < 0 || y < 0) {
+            return null;
+        }
+        int column = x >> CELL_SHIFT;
+        int row = y >> CELL_SHIFT;
+        if (column >= columns || row >= rows) {
+            return null;
+        }
+        int value = cells[row * columns + column];
+        return value == 0 ? null : ZONES[value - 1];
+    }
+
+    public Utility.Region getRegion(int x, int y) {
+        Utility.Zone zone = getZone(x, y);
+        return zone == null ? null : zone.region;
+    }
+}
@@ -0,0 +1,493 @@
+package com.webonastick.watchface.ledwatch;
+
+import com.webonastick.util.BoxBlur;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Computes the text sizes, offsets, and field bounds of the watch
+ * face for a {@link Key}, remembering recent results, so that
+ * switching back to a theme or in and out of ambient mode does no
+ * text measurement at all.  Text measurements are remembered per
+ * font, size, and skew too, since most of them are shared
+ * between layouts that differ only in e.g. shadow.
+ * <p>
+ * Text is measured by a {@link Measurer}, so everything else here is
+ * plain arithmetic that runs on any JVM.
+ */
+public class LayoutSolver {
+    private static final float TEXT_SIZE_FOR_CALCULATIONS = 1000f;
+    private static final int LEFT_RIGHT_PADDING_DP = 4;
+    private static final float VINTAGE_LED_TEXT_SIZE_RATIO = 0.875f;
+
+    private static final int MAX_LAYOUTS = 12;
+    private static final int MAX_METRICS = 256;
+
+    private static final int ALIGN_LEFT = 0;
+    private static final int ALIGN_CENTER = 1;
+    private static final int ALIGN_RIGHT = 2;
+
+    /**
+     * Measures text, e.g. with an Android Paint.  Fonts are named, e.g.
+     * by asset filename, and the measurer finds the typeface, so that
+     * measurements outlive any one Typeface instance.  Only called
+     * with the solver's lock held.
+     */
+    public interface Measurer {
+        Metrics measure(String font, float textSize, float textSkewX, String text);
+    }
+
+    /**
+     * Everything a layout depends on.  The renderer fills one in
+     * place; the solver keeps copies of the ones it has seen.
+     */
+    public static final class Key {
+        Utility.LEDWatchThemeMode themeMode;
+        boolean ambient;
+        boolean is24Hour;
+        boolean round;
+        boolean demoTimeMode;
+        int surfaceWidth;
+        int surfaceHeight;
+        float pixelDensity;
+
+        /* font names, as the measurer understands them */
+        String sevenSegmentFont;
+        String fourteenSegmentFont;
+        String sixthsOfAPieFont;
+        String amPmFont;
+        float textSkewX;
+
+        /* as integer numbers of spaces */
+        int letterSpacing;
+        int letterSpacing2;
+        float smallerTextSizeRatio;
+        float lineSpacingRatio;
+        boolean fullWidthColon;
+
+        /* all segments on, without letter spacing */
+        String leftSegments;
+        String middleSegments;
+        String rightSegments;
+        String topLeftSegments;
+        String topRightSegments;
+        String bottomLeftSegments;
+        String bottomRightSegments;
+
+        float shadowRadius;
+        float shadowDx;
+        float shadowDy;
+
+        Key() {
+        }
+
+        Key(Key key) {
+            themeMode = key.themeMode;
+            ambient = key.ambient;
+            is24Hour = key.is24Hour;
+            round = key.round;
+            demoTimeMode = key.demoTimeMode;
+            surfaceWidth = key.surfaceWidth;
+            surfaceHeight = key.surfaceHeight;
+            pixelDensity = key.pixelDensity;
+            sevenSegmentFont = key.sevenSegmentFont;
+            fourteenSegmentFont = key.fourteenSegmentFont;
+            sixthsOfAPieFont = key.sixthsOfAPieFont;
+            amPmFont = key.amPmFont;
+            textSkewX = key.textSkewX;
+            letterSpacing = key.letterSpacing;
+            letterSpacing2 = key.letterSpacing2;
+            smallerTextSizeRatio = key.smallerTextSizeRatio;
+            lineSpacingRatio = key.lineSpacingRatio;
+            fullWidthColon = key.fullWidthColon;
+            leftSegments = key.leftSegments;
+            middleSegments = key.middleSegments;
+            rightSegments = key.rightSegments;
+            topLeftSegments = key.topLeftSegments;
+            topRightSegments = key.topRightSegments;
+            bottomLeftSegments = key.bottomLeftSegments;
+            bottomRightSegments = key.bottomRightSegments;
+            shadowRadius = key.shadowRadius;
+            shadowDx = key.shadowDx;
+            shadowDy = key.shadowDy;
+        }
+
+        private static boolean equal(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+
+        private static int hash(Object o) {
+            return o == null ? 0 : o.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return themeMode == k.themeMode &&
+                    ambient == k.ambient &&
+                    is24Hour == k.is24Hour &&
+                    round == k.round &&
+                    demoTimeMode == k.demoTimeMode &&
+                    surfaceWidth == k.surfaceWidth &&
+                    surfaceHeight == k.surfaceHeight &&
+                    pixelDensity == k.pixelDensity &&
+                    equal(sevenSegmentFont, k.sevenSegmentFont) &&
+                    equal(fourteenSegmentFont, k.fourteenSegmentFont) &&
+                    equal(sixthsOfAPieFont, k.sixthsOfAPieFont) &&
+                    equal(amPmFont, k.amPmFont) &&
+                    textSkewX == k.textSkewX &&
+                    letterSpacing == k.letterSpacing &&
+                    letterSpacing2 == k.letterSpacing2 &&
+                    smallerTextSizeRatio == k.smallerTextSizeRatio &&
+                    lineSpacingRatio == k.lineSpacingRatio &&
+                    fullWidthColon == k.fullWidthColon &&
+                    equal(leftSegments, k.leftSegments) &&
+                    equal(middleSegments, k.middleSegments) &&
+                    equal(rightSegments, k.rightSegments) &&
+                    equal(topLeftSegments, k.topLeftSegments) &&
+                    equal(topRightSegments, k.topRightSegments) &&
+                    equal(bottomLeftSegments, k.bottomLeftSegments) &&
+                    equal(bottomRightSegments, k.bottomRightSegments) &&
+                    shadowRadius == k.shadowRadius &&
+                    shadowDx == k.shadowDx &&
+                    shadowDy == k.shadowDy;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = hash(themeMode);
+            h = 31 * h + (ambient ? 1 : 0);
+            h = 31 * h + (is24Hour ? 1 : 0);
+            h = 31 * h + (round ? 1 : 0);
+            h = 31 * h + (demoTimeMode ? 1 : 0);
+            h = 31 * h + surfaceWidth;
+            h = 31 * h + surfaceHeight;
+            h = 31 * h + Float.floatToIntBits(pixelDensity);
+            h = 31 * h + hash(sevenSegmentFont);
+            h = 31 * h + hash(fourteenSegmentFont);
+            h = 31 * h + hash(sixthsOfAPieFont);
+            h = 31 * h + hash(amPmFont);
+            h = 31 * h + Float.floatToIntBits(textSkewX);
+            h = 31 * h + letterSpacing;
+            h = 31 * h + letterSpacing2;
+            h = 31 * h + Float.floatToIntBits(smallerTextSizeRatio);
+            h = 31 * h + Float.floatToIntBits(lineSpacingRatio);
+            h = 31 * h + (fullWidthColon ? 1 : 0);
+            h = 31 * h + hash(leftSegments);
+            h = 31 * h + hash(middleSegments);
+            h = 31 * h + hash(rightSegments);
+            h = 31 * h + hash(topLeftSegments);
+            h = 31 * h + hash(topRightSegments);
+            h = 31 * h + hash(bottomLeftSegments);
+            h = 31 * h + hash(bottomRightSegments);
+            h = 31 * h + Float.floatToIntBits(shadowRadius);
+            h = 31 * h + Float.floatToIntBits(shadowDx);
+            h = 31 * h + Float.floatToIntBits(shadowDy);
+            return h;
+        }
+    }
+
+    /* measurements of one string in one font, size, and skew */
+    public static final class Metrics {
+        /* advance width */
+        final float width;
+        /* height of the first character's bounds */
+        final float firstCharHeight;
+        /* width of the whole string's bounds */
+        final float boundsWidth;
+        /* the font's top and bottom, relative to the baseline */
+        final float top;
+        final float bottom;
+
+        public Metrics(float width, float firstCharHeight, float boundsWidth, float top, float bottom) {
+            this.width = width;
+            this.firstCharHeight = firstCharHeight;
+            this.boundsWidth = boundsWidth;
+            this.top = top;
+            this.bottom = bottom;
+        }
+    }
+
+    private static final class MetricsKey {
+        final String font;
+        final float textSize;
+        final float textSkewX;
+        final String text;
+
+        MetricsKey(String font, float textSize, float textSkewX, String text) {
+            this.font = font;
+            this.textSize = textSize;
+            this.textSkewX = textSkewX;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MetricsKey)) {
+                return false;
+            }
+            MetricsKey k = (MetricsKey) o;
+            return font.equals(k.font) && textSize == k.textSize &&
+                    textSkewX == k.textSkewX && text.equals(k.text);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = font.hashCode();
+            h = 31 * h + Float.floatToIntBits(textSize);
+            h = 31 * h + Float.floatToIntBits(textSkewX);
+            h = 31 * h + text.hashCode();
+            return h;
+        }
+    }
+
+    private final LinkedHashMap<Key, LayoutSpec> layouts =
+            new LinkedHashMap<Key, LayoutSpec>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, LayoutSpec> eldest) {
+                    return size() > MAX_LAYOUTS;
+                }
+            };
+
+    private final LinkedHashMap<MetricsKey, Metrics> metrics =
+            new LinkedHashMap<MetricsKey, Metrics>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<MetricsKey, Metrics> eldest) {
+                    return size() > MAX_METRICS;
+                }
+            };
+
+    private final Measurer measurer;
+
+    private int layoutsComputed = 0;
+    private int metricsComputed = 0;
+
+    public LayoutSolver(Measurer measurer) {
+        this.measurer = measurer;
+    }
+
+    /* may be called from any thread */
+    public synchronized LayoutSpec solve(Key key) {
+        LayoutSpec spec = layouts.get(key);
+        if (spec == null) {
+            spec = computeLayout(key);
+            layouts.put(new Key(key), spec);
+            layoutsComputed += 1;
+        }
+        return spec;
+    }
+
+    /* for measuring how much work memoization saves */
+    public synchronized int getLayoutsComputed() {
+        return layoutsComputed;
+    }
+
+    public synchronized int getMetricsComputed() {
+        return metricsComputed;
+    }
+
+    /* must hold the lock */
+    private Metrics getMetrics(String font, float textSize, float textSkewX, String text) {
+        MetricsKey metricsKey = new MetricsKey(font, textSize, textSkewX, text);
+        Metrics result = metrics.get(metricsKey);
+        if (result == null) {
+            result = measurer.measure(font, textSize, textSkewX, text);
+            metrics.put(metricsKey, result);
+            metricsComputed += 1;
+        }
+        return result;
+    }
+
+    private static float dpToPixels(Key key, float dp) {
+        if (key.demoTimeMode) {
+            return dp * key.pixelDensity * Math.min(key.surfaceWidth, key.surfaceHeight) / 320f;
+        }
+        return dp * key.pixelDensity;
+    }
+
+    private LayoutSpec computeLayout(Key key) {
+        float width = key.surfaceWidth;
+        float height = key.surfaceHeight;
+        float skewX = key.textSkewX;
+
+        /* time of day */
+        float textWidth = width - dpToPixels(key, LEFT_RIGHT_PADDING_DP * 2);
+        String sampleText = key.fullWidthColon ? "88888" : "88:88";
+        sampleText = addLetterSpacing(sampleText, key.letterSpacing);
+        Metrics sample = getMetrics(key.sevenSegmentFont, TEXT_SIZE_FOR_CALCULATIONS, skewX, sampleText);
+        float rawTextHeight = sample.firstCharHeight;
+        float rawTextWidth = sample.width;
+        float textSize = TEXT_SIZE_FOR_CALCULATIONS / rawTextWidth * textWidth;
+        float multiplier = 1f;
+        if (key.round || key.demoTimeMode) {
+            float angle = (float) Math.atan2(rawTextHeight, rawTextWidth);
+            multiplier = (float) Math.cos(angle);
+        }
+        if (key.themeMode == Utility.LEDWatchThemeMode.VINTAGE_LED) {
+            multiplier *= VINTAGE_LED_TEXT_SIZE_RATIO;
+        }
+        textSize *= multiplier;
+        textWidth *= multiplier;
+        float xOffsetAmPm = width / 2f - textWidth / 2f;
+        float xOffsetLeft = width / 2f - textWidth / 2f;
+        float xOffsetRight = width / 2f + textWidth / 2f;
+        float xOffsetMiddle = width / 2f;
+
+        /* horizontal adjustment due to any skew */
+        float capHeight = getMetrics(key.sevenSegmentFont, textSize, skewX, "E").firstCharHeight;
+        float shift = capHeight / 2f * skewX;
+        xOffsetLeft += shift;
+        xOffsetRight += shift;
+        xOffsetMiddle += shift;
+        xOffsetAmPm += shift;
+
+        /* "A" or "P" */
+        float textSizeAmPm = (textSize / 4f) / 0.7f;
+
+        /* day and date */
+        float smallerTextSize = textSize * key.smallerTextSizeRatio;
+        sampleText = addLetterSpacing(key.topLeftSegments + key.topRightSegments, key.letterSpacing2);
+        float cookedWidth = getMetrics(key.fourteenSegmentFont, smallerTextSize, skewX, sampleText).width;
+        float xOffsetTopLeft = width / 2f - cookedWidth / 2f;
+        float xOffsetTopRight = width / 2f + cookedWidth / 2f;
+        float capHeightSmaller = getMetrics(key.fourteenSegmentFont, smallerTextSize, skewX, "E").firstCharHeight;
+        shift = capHeightSmaller / 2f * skewX;
+        xOffsetTopLeft += shift;
+        xOffsetTopRight += shift;
+
+        /* battery and seconds */
+        sampleText = addLetterSpacing(key.bottomLeftSegments + key.bottomRightSegments, key.letterSpacing2);
+        cookedWidth = getMetrics(key.fourteenSegmentFont, smallerTextSize, skewX, sampleText).width;
+        float oneEightDifference = 0f;
+        if (sampleText.startsWith("1")) {
+            oneEightDifference =
+                    getMetrics(key.fourteenSegmentFont, smallerTextSize, skewX, "8").boundsWidth -
+                    getMetrics(key.fourteenSegmentFont, smallerTextSize, skewX, "1").boundsWidth;
+            cookedWidth -= oneEightDifference;
+        }
+        float xOffsetBottomRight = width / 2f + cookedWidth / 2f + shift;
+        float xOffsetBottomRight2 = width / 2f + cookedWidth / 2f + shift;
+        float xOffsetBottomLeft = width / 2f - cookedWidth / 2f - oneEightDifference + shift;
+
+        /* vertical offsets */
+        float textAscent = -textSize;
+        float textAscentAmPm = -textSizeAmPm * 0.7f;
+        float lineSpacing = textSize * key.lineSpacingRatio;
+        float yOffsetMiddle = height / 2f - textAscent / 2f;
+        float yOffsetTop = yOffsetMiddle + textAscent - lineSpacing;
+        float yOffsetBottom = yOffsetMiddle - textAscent * key.smallerTextSizeRatio + lineSpacing;
+        float yOffsetAm = height / 2f + textAscent / 4f - textAscentAmPm / 2f;
+        float yOffsetPm = height / 2f - textAscent / 4f - textAscentAmPm / 2f;
+        float yOffsetTopMiddle = yOffsetMiddle + textAscent - lineSpacing / 2f;
+        float yOffsetMiddleBottom = yOffsetMiddle + lineSpacing / 2f;
+
+        /* bounds of each field with all segments on */
+        float[] fieldBounds = new float[LayoutSpec.FIELD_COUNT * 4];
+        unionFieldBounds(key, fieldBounds, LayoutSpec.FIELD_HOURS,
+                key.leftSegments, key.letterSpacing, xOffsetLeft, yOffsetMiddle,
+                key.sevenSegmentFont, textSize, skewX, ALIGN_LEFT);
+        unionFieldBounds(key, fieldBounds, LayoutSpec.FIELD_MINUTES,
+                key.rightSegments, key.letterSpacing, xOffsetRight, yOffsetMiddle,
+                key.sevenSegmentFont, textSize, skewX, ALIGN_RIGHT);
+        unionFieldBounds(key, fieldBounds, LayoutSpec.FIELD_COLON,
+                key.middleSegments, key.letterSpacing, xOffsetMiddle, yOffsetMiddle,
+                key.sevenSegmentFont, textSize, skewX, ALIGN_CENTER);
+        /* "A" and "P" are upright */
+        unionFieldBounds(key, fieldBounds, LayoutSpec.FIELD_AM_PM,
+                "A", 0, xOffsetAmPm, yOffsetAm,
+                key.amPmFont, textSizeAmPm, 0f, ALIGN_LEFT);
+        unionFieldBounds(key, fieldBounds, LayoutSpec.FIELD_AM_PM,
+                "P", 0, xOffsetAmPm, yOffsetPm,
+                key.amPmFont, textSizeAmPm, 0f, ALIGN_LEFT);
+        unionFieldBounds(key, fieldBounds, LayoutSpec.FIELD_DAY_OF_WEEK,
+                key.topLeftSegments, key.letterSpacing2, xOffsetTopLeft, yOffsetTop,
+                key.fourteenSegmentFont, smallerTextSize, skewX, ALIGN_LEFT);
+        unionFieldBounds(key, fieldBounds, LayoutSpec.FIELD_DAY_OF_MONTH,
+                key.topRightSegments, key.letterSpacing2, xOffsetTopRight, yOffsetTop,
+                key.sevenSegmentFont, smallerTextSize, skewX, ALIGN_RIGHT);
+        unionFieldBounds(key, fieldBounds, LayoutSpec.FIELD_BATTERY,
+                key.bottomLeftSegments, key.letterSpacing2, xOffsetBottomLeft, yOffsetBottom,
+                key.fourteenSegmentFont, smallerTextSize, skewX, ALIGN_LEFT);
+        unionFieldBounds(key, fieldBounds, LayoutSpec.FIELD_SECONDS,
+                key.bottomRightSegments, key.letterSpacing2, xOffsetBottomRight, yOffsetBottom,
+                key.sevenSegmentFont, smallerTextSize, skewX, ALIGN_RIGHT);
+        unionFieldBounds(key, fieldBounds, LayoutSpec.FIELD_SECONDS_PIE,
+                "\uf005", 0, xOffsetBottomRight2, yOffsetBottom,
+                key.sixthsOfAPieFont, smallerTextSize, skewX, ALIGN_RIGHT);
+
+        return new LayoutSpec(textSize, textSizeAmPm, smallerTextSize,
+                xOffsetLeft, xOffsetMiddle, xOffsetRight, xOffsetAmPm,
+                xOffsetTopLeft, xOffsetTopRight,
+                xOffsetBottomLeft, xOffsetBottomRight, xOffsetBottomRight2,
+                yOffsetTop, yOffsetMiddle, yOffsetBottom,
+                yOffsetAm, yOffsetPm,
+                yOffsetTopMiddle, yOffsetMiddleBottom,
+                fieldBounds);
+    }
+
+    /* padded for skew, all of the shadow's blur, and antialiasing; bounds holds left, top, right, and bottom for each field */
+    private void unionFieldBounds(Key key, float[] bounds, int field, String segments, int letterSpacing,
+                                  float x, float y, String font, float textSize, float textSkewX,
+                                  int align) {
+        Metrics m = getMetrics(font, textSize, textSkewX, addLetterSpacing(segments, letterSpacing));
+        float left;
+        switch (align) {
+            case ALIGN_CENTER:
+                left = x - m.width / 2f;
+                break;
+            case ALIGN_RIGHT:
+                left = x - m.width;
+                break;
+            default:
+                left = x;
+        }
+        float skew = Math.abs(textSkewX * textSize);
+        float padding = BoxBlur.reach(BoxBlur.radiusToSigma(key.shadowRadius)) + dpToPixels(key, 1) + 2f;
+        float l = left - skew - padding + Math.min(key.shadowDx, 0);
+        float r = left + m.width + skew + padding + Math.max(key.shadowDx, 0);
+        float t = y + m.top - padding + Math.min(key.shadowDy, 0);
+        float b = y + m.bottom + padding + Math.max(key.shadowDy, 0);
+        int i = field * 4;
+        if (bounds[i] >= bounds[i + 2] || bounds[i + 1] >= bounds[i + 3]) {
+            bounds[i] = l;
+            bounds[i + 1] = t;
+            bounds[i + 2] = r;
+            bounds[i + 3] = b;
+        } else {
+            bounds[i] = Math.min(bounds[i], l);
+            bounds[i + 1] = Math.min(bounds[i + 1], t);
+            bounds[i + 2] = Math.max(bounds[i + 2], r);
+            bounds[i + 3] = Math.max(bounds[i + 3], b);
+        }
+    }
+
+    /**
+     * Insert at each point between two characters a number of spaces,
+     * returning the resulting string.
+     */
+    static String addLetterSpacing(String s, int spacing) {
+        final char space = ' ';
+        int length = s.length();
+        if (spacing < 1 || length < 2) {
+            return s;
+        }
+        char[] result = new char[length + (length - 1) * spacing];
+        int j = 0;
+        for (int i = 0; i < length; i += 1) {
+            if (i > 0) {
+                for (int k = 0; k < spacing; k += 1) {
+                    result[j++] = space;
+                }
+            }
+            result[j++] = s.charAt(i);
+        }
+        return new String(result);
+    }
+}
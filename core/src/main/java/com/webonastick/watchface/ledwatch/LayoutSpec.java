@@ -0,0 +1,167 @@
+package com.webonastick.watchface.ledwatch;
+
+/**
+ * Text sizes, offsets, and field bounds computed by a
+ * {@link LayoutSolver}.  Never changes once created.
+ */
+public final class LayoutSpec {
+    /* fields with bounds, for partial redraws */
+    public static final int FIELD_HOURS = 0;
+    public static final int FIELD_MINUTES = 1;
+    public static final int FIELD_COLON = 2;
+    public static final int FIELD_AM_PM = 3;
+    public static final int FIELD_DAY_OF_WEEK = 4;
+    public static final int FIELD_DAY_OF_MONTH = 5;
+    public static final int FIELD_BATTERY = 6;
+    public static final int FIELD_SECONDS = 7;
+    public static final int FIELD_SECONDS_PIE = 8;
+    public static final int FIELD_COUNT = 9;
+
+    /* time of day, "A"/"P", and day, date, battery, and seconds */
+    private final float textSize;
+    private final float textSizeAmPm;
+    private final float smallerTextSize;
+
+    private final float xOffsetLeft;
+    private final float xOffsetMiddle;
+    private final float xOffsetRight;
+    private final float xOffsetAmPm;
+    private final float xOffsetTopLeft;
+    private final float xOffsetTopRight;
+    private final float xOffsetBottomLeft;
+    private final float xOffsetBottomRight;
+    private final float xOffsetBottomRight2;
+
+    private final float yOffsetTop;
+    private final float yOffsetMiddle;
+    private final float yOffsetBottom;
+    private final float yOffsetAm;
+    private final float yOffsetPm;
+    private final float yOffsetTopMiddle;
+    private final float yOffsetMiddleBottom;
+
+    /* left, top, right, and bottom of each FIELD_* in turn */
+    private final float[] fieldBounds;
+
+    LayoutSpec(float textSize, float textSizeAmPm, float smallerTextSize,
+               float xOffsetLeft, float xOffsetMiddle, float xOffsetRight, float xOffsetAmPm,
+               float xOffsetTopLeft, float xOffsetTopRight,
+               float xOffsetBottomLeft, float xOffsetBottomRight, float xOffsetBottomRight2,
+               float yOffsetTop, float yOffsetMiddle, float yOffsetBottom,
+               float yOffsetAm, float yOffsetPm,
+               float yOffsetTopMiddle, float yOffsetMiddleBottom,
+               float[] fieldBounds) {
+        this.textSize = textSize;
+        this.textSizeAmPm = textSizeAmPm;
+        this.smallerTextSize = smallerTextSize;
+        this.xOffsetLeft = xOffsetLeft;
+        this.xOffsetMiddle = xOffsetMiddle;
+        this.xOffsetRight = xOffsetRight;
+        this.xOffsetAmPm = xOffsetAmPm;
+        this.xOffsetTopLeft = xOffsetTopLeft;
+        this.xOffsetTopRight = xOffsetTopRight;
+        this.xOffsetBottomLeft = xOffsetBottomLeft;
+        this.xOffsetBottomRight = xOffsetBottomRight;
+        this.xOffsetBottomRight2 = xOffsetBottomRight2;
+        this.yOffsetTop = yOffsetTop;
+        this.yOffsetMiddle = yOffsetMiddle;
+        this.yOffsetBottom = yOffsetBottom;
+        this.yOffsetAm = yOffsetAm;
+        this.yOffsetPm = yOffsetPm;
+        this.yOffsetTopMiddle = yOffsetTopMiddle;
+        this.yOffsetMiddleBottom = yOffsetMiddleBottom;
+        this.fieldBounds = fieldBounds;
+    }
+
+    public float getTextSize() {
+        return textSize;
+    }
+
+    public float getTextSizeAmPm() {
+        return textSizeAmPm;
+    }
+
+    public float getSmallerTextSize() {
+        return smallerTextSize;
+    }
+
+    public float getXOffsetLeft() {
+        return xOffsetLeft;
+    }
+
+    public float getXOffsetMiddle() {
+        return xOffsetMiddle;
+    }
+
+    public float getXOffsetRight() {
+        return xOffsetRight;
+    }
+
+    public float getXOffsetAmPm() {
+        return xOffsetAmPm;
+    }
+
+    public float getXOffsetTopLeft() {
+        return xOffsetTopLeft;
+    }
+
+    public float getXOffsetTopRight() {
+        return xOffsetTopRight;
+    }
+
+    public float getXOffsetBottomLeft() {
+        return xOffsetBottomLeft;
+    }
+
+    public float getXOffsetBottomRight() {
+        return xOffsetBottomRight;
+    }
+
+    public float getXOffsetBottomRight2() {
+        return xOffsetBottomRight2;
+    }
+
+    public float getYOffsetTop() {
+        return yOffsetTop;
+    }
+
+    public float getYOffsetMiddle() {
+        return yOffsetMiddle;
+    }
+
+    public float getYOffsetBottom() {
+        return yOffsetBottom;
+    }
+
+    public float getYOffsetAm() {
+        return yOffsetAm;
+    }
+
+    public float getYOffsetPm() {
+        return yOffsetPm;
+    }
+
+    public float getYOffsetTopMiddle() {
+        return yOffsetTopMiddle;
+    }
+
+    public float getYOffsetMiddleBottom() {
+        return yOffsetMiddleBottom;
+    }
+
+    public float getFieldLeft(int field) {
+        return fieldBounds[field * 4];
+    }
+
+    public float getFieldTop(int field) {
+        return fieldBounds[field * 4 + 1];
+    }
+
+    public float getFieldRight(int field) {
+        return fieldBounds[field * 4 + 2];
+    }
+
+    public float getFieldBottom(int field) {
+        return fieldBounds[field * 4 + 3];
+    }
+}
@@ -0,0 +1,65 @@
+package com.webonastick.watchface.ledwatch;
+
+import com.webonastick.util.HSPColor;
+
+/**
+ * A theme's colors worked out from a custom color instead of looked up
+ * in colors.xml: the LED foreground or LCD background, and the alpha
+ * at which faint segments keep the perceived brightness they have
+ * with the built-in colors.
+ */
+public final class Palette {
+    /* no brighter than the LCD theme's white, as colors.xml has it */
+    private static final float LCD_MAX_BRIGHTNESS = HSPColor.perceivedBrightness(0xffbfbfbf);
+
+    /* brightness the custom color is worked out at, low enough that no channel clips */
+    private static final float FULL_COLOR_BRIGHTNESS = 0.2f;
+
+    /* background in LCD mode, foreground in the others */
+    private final int themeColor;
+    private final int faintAlpha;
+
+    private Palette(int themeColor, int faintAlpha) {
+        this.themeColor = themeColor;
+        this.faintAlpha = faintAlpha;
+    }
+
+    /**
+     * The brightest opaque color with a hue and saturation (0 to 1),
+     * which is what custom colors are kept as.
+     */
+    public static int fullColor(float hue, float saturation) {
+        int color = HSPColor.hspToArgb(hue, saturation, FULL_COLOR_BRIGHTNESS);
+        int r = (color >> 16) & 0xff;
+        int g = (color >> 8) & 0xff;
+        int b = color & 0xff;
+        int max = Math.max(r, Math.max(g, b));
+        if (max == 0) {
+            return 0xffffffff;
+        }
+        return 0xff000000 |
+                (Math.round(r * 255f / max) << 16) |
+                (Math.round(g * 255f / max) << 8) |
+                Math.round(b * 255f / max);
+    }
+
+    public static Palette derive(Utility.LEDWatchThemeMode themeMode, int color) {
+        color |= 0xff000000;
+        if (themeMode == Utility.LEDWatchThemeMode.LCD) {
+            if (HSPColor.perceivedBrightness(color) > LCD_MAX_BRIGHTNESS) {
+                color = HSPColor.withBrightness(color, LCD_MAX_BRIGHTNESS);
+            }
+            return new Palette(color, FaintAlpha.fromBackground(color));
+        }
+        return new Palette(color, FaintAlpha.fromForeground(color));
+    }
+
+    public int getThemeColor() {
+        return themeColor;
+    }
+
+    /* 0 to 255 */
+    public int getFaintAlpha() {
+        return faintAlpha;
+    }
+}
@@ -0,0 +1,47 @@
+package com.webonastick.watchface.ledwatch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Derives a {@link Palette} for each theme mode and custom color once
+ * and keeps the most recently used ones, so switching between custom
+ * colors doesn't redo the HSP math.
+ * <p>
+ * Shared by renderers on different threads.
+ */
+public class PaletteCache {
+    private final int maxSize;
+    private final LinkedHashMap<Long, Palette> palettes;
+    private int derivedCount = 0;
+
+    public PaletteCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.maxSize = maxSize;
+        this.palettes = new LinkedHashMap<Long, Palette>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Palette> eldest) {
+                return size() > PaletteCache.this.maxSize;
+            }
+        };
+    }
+
+    /* color is packed ARGB; its alpha is ignored */
+    public synchronized Palette get(Utility.LEDWatchThemeMode themeMode, int color) {
+        Long key = ((long) themeMode.ordinal() << 32) | (color & 0xffffffL);
+        Palette palette = palettes.get(key);
+        if (palette == null) {
+            palette = Palette.derive(themeMode, color);
+            palettes.put(key, palette);
+            derivedCount += 1;
+        }
+        return palette;
+    }
+
+    /* palettes worked out so far, for testing */
+    synchronized int getDerivedCount() {
+        return derivedCount;
+    }
+}
@@ -0,0 +1,311 @@
+package com.webonastick.watchface.ledwatch;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the saved theme, theme colors, custom colors, and fonts in
+ * memory and writes the theme and theme colors out on a background
+ * executor.  Fonts are written by the configuration activity, and so
+ * are custom colors, unless the watch face changed one itself.
+ * <p>
+ * Saves are debounced, so cycling through colors with a burst of taps
+ * costs one write.  {@link #flush} writes right away, still on the
+ * executor; the calling thread never touches the disk after
+ * {@link #load}.
+ */
+public class PreferenceStore {
+    /* where the values live, e.g. SharedPreferences; write() is only called on the executor */
+    public interface Storage {
+        Map<String, String> read();
+
+        void write(Map<String, String> values);
+    }
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 2000;
+
+    static final String KEY_THEME_MODE = "theme_mode";
+    private static final String KEY_CUSTOM_COLOR_PREFIX = "custom_color_";
+    private static final String KEY_FONT_PREFIX = "font_";
+
+    private static final String FONT_FAMILY = "family";
+    private static final String FONT_SIZE = "size";
+    private static final String FONT_WEIGHT = "weight";
+    private static final String FONT_STYLE = "style";
+    private static final String[] FONT_PARTS = { FONT_FAMILY, FONT_SIZE, FONT_WEIGHT, FONT_STYLE };
+
+    private final Storage storage;
+    private final ScheduledExecutorService executor;
+    private final long debounceMillis;
+
+    private Utility.LEDWatchThemeMode themeMode = null;
+    private final Map<Utility.LEDWatchThemeMode, Utility.LEDWatchThemeColor> themeColors =
+            new EnumMap<Utility.LEDWatchThemeMode, Utility.LEDWatchThemeColor>(Utility.LEDWatchThemeMode.class);
+    private final Map<Utility.LEDWatchThemeMode, DSEGFont> fonts =
+            new EnumMap<Utility.LEDWatchThemeMode, DSEGFont>(Utility.LEDWatchThemeMode.class);
+    private final Map<Utility.LEDWatchThemeMode, Integer> customColors =
+            new EnumMap<Utility.LEDWatchThemeMode, Integer>(Utility.LEDWatchThemeMode.class);
+
+    /* custom colors changed here rather than in the configuration activity, for the next save */
+    private final Set<Utility.LEDWatchThemeMode> changedCustomColors = EnumSet.noneOf(Utility.LEDWatchThemeMode.class);
+
+    /* values not written yet, shared with the executor */
+    private final Object lock = new Object();
+    private Map<String, String> pending = null;
+    private ScheduledFuture<?> scheduled = null;
+    private int writeCount = 0;
+
+    private final Runnable writeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Map<String, String> values;
+            synchronized (lock) {
+                values = pending;
+                pending = null;
+            }
+            if (values != null) {
+                storage.write(values);
+                synchronized (lock) {
+                    writeCount += 1;
+                }
+            }
+        }
+    };
+
+    public PreferenceStore(Storage storage, ScheduledExecutorService executor, long debounceMillis) {
+        this.storage = storage;
+        this.executor = executor;
+        this.debounceMillis = debounceMillis;
+    }
+
+    public PreferenceStore(Storage storage, ScheduledExecutorService executor) {
+        this(storage, executor, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    private static String themeColorKey(Utility.LEDWatchThemeMode themeMode) {
+        return "theme_color_" + themeMode.resourceName;
+    }
+
+    private static String fontKey(String part, Utility.LEDWatchThemeMode themeMode) {
+        return KEY_FONT_PREFIX + part + "_" + themeMode.resourceName;
+    }
+
+    /* the font's keys and values, written directly by the configuration activity */
+    public static Map<String, String> formatFont(Utility.LEDWatchThemeMode themeMode, DSEGFont font) {
+        Map<String, String> values = new HashMap<String, String>();
+        values.put(fontKey(FONT_FAMILY, themeMode), font.getFamily().resourceName);
+        values.put(fontKey(FONT_SIZE, themeMode), font.getSize().resourceName);
+        values.put(fontKey(FONT_WEIGHT, themeMode), font.getWeight().resourceName);
+        values.put(fontKey(FONT_STYLE, themeMode), font.getStyle().resourceName);
+        return values;
+    }
+
+    /* null unless the key is one of a font's */
+    public static Utility.LEDWatchThemeMode findFontThemeMode(String key) {
+        if (key == null || !key.startsWith(KEY_FONT_PREFIX)) {
+            return null;
+        }
+        for (String part : FONT_PARTS) {
+            String prefix = KEY_FONT_PREFIX + part + "_";
+            if (key.startsWith(prefix)) {
+                return Utility.LEDWatchThemeMode.findThemeModeNamed(key.substring(prefix.length()));
+            }
+        }
+        return null;
+    }
+
+    /* written directly by the configuration activity */
+    public static String customColorKey(Utility.LEDWatchThemeMode themeMode) {
+        return KEY_CUSTOM_COLOR_PREFIX + themeMode.resourceName;
+    }
+
+    /* null unless the key is a custom color's */
+    public static Utility.LEDWatchThemeMode findCustomColorThemeMode(String key) {
+        if (key == null || !key.startsWith(KEY_CUSTOM_COLOR_PREFIX)) {
+            return null;
+        }
+        return Utility.LEDWatchThemeMode.findThemeModeNamed(key.substring(KEY_CUSTOM_COLOR_PREFIX.length()));
+    }
+
+    /* "rrggbb", or empty for none */
+    public static String formatCustomColor(int color) {
+        return color == 0 ? "" : String.format("%06x", color & 0xffffff);
+    }
+
+    /* opaque ARGB, or zero for none or anything unreadable */
+    public static int parseCustomColor(String value) {
+        if (value == null || value.length() != 6) {
+            return 0;
+        }
+        try {
+            return 0xff000000 | Integer.parseInt(value, 16);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /* one read of everything saved; call once, before the getters */
+    public void load() {
+        Map<String, String> values = storage.read();
+        themeMode = Utility.LEDWatchThemeMode.findThemeModeNamed(values.get(KEY_THEME_MODE));
+        for (Utility.LEDWatchThemeMode mode : Utility.LEDWatchThemeMode.values()) {
+            Utility.LEDWatchThemeColor themeColor =
+                    Utility.LEDWatchThemeColor.findThemeColorNamed(values.get(themeColorKey(mode)));
+            if (themeColor != null) {
+                themeColors.put(mode, themeColor);
+            }
+            fonts.put(mode, readFont(values, mode));
+            customColors.put(mode, parseCustomColor(values.get(customColorKey(mode))));
+        }
+    }
+
+    /* falls back to the theme's default for any part not saved */
+    public static DSEGFont readFont(Map<String, String> values, Utility.LEDWatchThemeMode themeMode) {
+        DSEGFont font = DSEGFont.getDefaultFont(themeMode);
+        Utility.DSEGFontFamily family = Utility.DSEGFontFamily.findFamilyNamed(values.get(fontKey(FONT_FAMILY, themeMode)));
+        Utility.DSEGFontSize size = Utility.DSEGFontSize.findSizeNamed(values.get(fontKey(FONT_SIZE, themeMode)));
+        Utility.DSEGFontWeight weight = Utility.DSEGFontWeight.findWeightNamed(values.get(fontKey(FONT_WEIGHT, themeMode)));
+        Utility.DSEGFontStyle style = Utility.DSEGFontStyle.findStyleNamed(values.get(fontKey(FONT_STYLE, themeMode)));
+        if (family != null) {
+            font = font.withFamily(family);
+        }
+        if (size != null) {
+            font = font.withSize(size);
+        }
+        if (weight != null) {
+            font = font.withWeight(weight);
+        }
+        if (style != null) {
+            font = font.withStyle(style);
+        }
+        return font;
+    }
+
+    /* null if never saved */
+    public Utility.LEDWatchThemeMode getThemeMode() {
+        return themeMode;
+    }
+
+    /* null if never saved */
+    public Utility.LEDWatchThemeColor getThemeColor(Utility.LEDWatchThemeMode themeMode) {
+        return themeColors.get(themeMode);
+    }
+
+    public DSEGFont getFont(Utility.LEDWatchThemeMode themeMode) {
+        DSEGFont font = fonts.get(themeMode);
+        return font == null ? DSEGFont.getDefaultFont(themeMode) : font;
+    }
+
+    /* zero if none */
+    public int getCustomColor(Utility.LEDWatchThemeMode themeMode) {
+        Integer color = customColors.get(themeMode);
+        return color == null ? 0 : color;
+    }
+
+    /* remembers a font the configuration activity already saved */
+    public void setFont(Utility.LEDWatchThemeMode themeMode, DSEGFont font) {
+        fonts.put(themeMode, font);
+    }
+
+    /**
+     * Remembers a custom color, or zero for none, changed by the watch
+     * face itself, and makes sure a write already pending doesn't put
+     * back the old one.  Saved with the rest of the theme by the next
+     * {@link #save}.
+     */
+    public void setCustomColor(Utility.LEDWatchThemeMode themeMode, int color) {
+        customColors.put(themeMode, color);
+        changedCustomColors.add(themeMode);
+        synchronized (lock) {
+            if (pending != null) {
+                pending.put(customColorKey(themeMode), formatCustomColor(color));
+            }
+        }
+    }
+
+    /**
+     * Remembers a custom color the configuration activity already
+     * saved, and takes it out of any write still pending, so that only
+     * the activity writes it.
+     */
+    public void adoptCustomColor(Utility.LEDWatchThemeMode themeMode, int color) {
+        customColors.put(themeMode, color);
+        changedCustomColors.remove(themeMode);
+        synchronized (lock) {
+            if (pending != null) {
+                pending.remove(customColorKey(themeMode));
+            }
+        }
+    }
+
+    /**
+     * Remembers the theme right away; writes it out, with any custom
+     * color changed by {@link #setCustomColor}, after the debounce
+     * delay.  Fonts and other custom colors are left to the
+     * configuration activity.
+     */
+    public void save(Utility.LEDWatchThemeMode themeMode,
+                     Map<Utility.LEDWatchThemeMode, Utility.LEDWatchThemeColor> themeColors) {
+        this.themeMode = themeMode;
+        this.themeColors.putAll(themeColors);
+
+        Map<String, String> values = new HashMap<String, String>();
+        values.put(KEY_THEME_MODE, themeMode.resourceName);
+        for (Map.Entry<Utility.LEDWatchThemeMode, Utility.LEDWatchThemeColor> entry : this.themeColors.entrySet()) {
+            values.put(themeColorKey(entry.getKey()), entry.getValue().resourceName);
+        }
+        for (Utility.LEDWatchThemeMode mode : changedCustomColors) {
+            values.put(customColorKey(mode), formatCustomColor(getCustomColor(mode)));
+        }
+        changedCustomColors.clear();
+        synchronized (lock) {
+            /* a custom color from an earlier save may still be waiting */
+            if (pending != null) {
+                pending.putAll(values);
+            } else {
+                pending = values;
+            }
+        }
+        schedule(debounceMillis);
+    }
+
+    private void schedule(long delayMillis) {
+        if (executor.isShutdown()) {
+            return;
+        }
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        scheduled = executor.schedule(writeRunnable, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /* writes anything pending now, e.g. when the watch face is hidden */
+    public void flush() {
+        boolean hasPending;
+        synchronized (lock) {
+            hasPending = pending != null;
+        }
+        if (hasPending) {
+            schedule(0);
+        }
+    }
+
+    /* flushes, then lets the executor finish */
+    public void close() {
+        flush();
+        executor.shutdown();
+    }
+
+    /* writes actually made, for testing */
+    int getWriteCount() {
+        synchronized (lock) {
+            return writeCount;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.webonastick.watchface.ledwatch;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity text for one field of the display.
+ * <p>
+ * Letter spacing is baked into the buffer when it is set, so
+ * appending characters only writes into preallocated slots and
+ * nothing is allocated while drawing a frame.  Draw the result
+ * with {@code Canvas.drawText(getChars(), 0, length(), ...)}.
+ */
+public class SegmentText {
+    /* all segments off */
+    public static final char BLANK = '!';
+
+    private static final char SPACE = ' ';
+
+    private static final char[][] TWO_DIGITS = new char[100][];
+    private static final char[][] TWO_DIGITS_BLANK_PADDED = new char[100][];
+
+    /* battery percentages, 0 to 100, as "%2d%%" and "%3d%%" with blanks for spaces */
+    private static final char[][] BATTERY_TWO_DIGITS = new char[101][];
+    private static final char[][] BATTERY_THREE_DIGITS = new char[101][];
+
+    private static final char[] UNKNOWN = { '?', '?', '?', '?' };
+
+    static {
+        for (int i = 0; i < 100; i += 1) {
+            char tens = (char) ('0' + i / 10);
+            char ones = (char) ('0' + i % 10);
+            TWO_DIGITS[i] = new char[] { tens, ones };
+            TWO_DIGITS_BLANK_PADDED[i] = new char[] { i < 10 ? BLANK : tens, ones };
+        }
+        for (int i = 0; i <= 100; i += 1) {
+            BATTERY_TWO_DIGITS[i] = padded(i, 2);
+            BATTERY_THREE_DIGITS[i] = padded(i, 3);
+        }
+    }
+
+    private static char[] padded(int percentage, int width) {
+        String digits = Integer.toString(percentage);
+        int length = Math.max(width, digits.length()) + 1;
+        char[] result = new char[length];
+        Arrays.fill(result, BLANK);
+        digits.getChars(0, digits.length(), result, length - 1 - digits.length());
+        result[length - 1] = '%';
+        return result;
+    }
+
+    private final int capacity;
+    private int letterSpacing = -1;
+    private char[] chars;
+    private int length = 0;
+    private int count = 0;
+
+    public SegmentText(int capacity, int letterSpacing) {
+        this.capacity = capacity;
+        setLetterSpacing(letterSpacing);
+    }
+
+    public SegmentText(int capacity) {
+        this(capacity, 0);
+    }
+
+    /**
+     * Sets the number of spaces between characters.  Only allocates
+     * when the spacing actually changes; clears the text.
+     */
+    public void setLetterSpacing(int letterSpacing) {
+        if (letterSpacing < 0) {
+            letterSpacing = 0;
+        }
+        if (letterSpacing == this.letterSpacing) {
+            clear();
+            return;
+        }
+        this.letterSpacing = letterSpacing;
+        chars = new char[capacity + Math.max(capacity - 1, 0) * letterSpacing];
+        Arrays.fill(chars, SPACE);
+        clear();
+    }
+
+    public int getLetterSpacing() {
+        return letterSpacing;
+    }
+
+    public SegmentText clear() {
+        length = 0;
+        count = 0;
+        return this;
+    }
+
+    /* Characters past the capacity are dropped. */
+    public SegmentText append(char c) {
+        if (count >= capacity) {
+            return this;
+        }
+        if (count > 0) {
+            length += letterSpacing;
+        }
+        chars[length] = c;
+        length += 1;
+        count += 1;
+        return this;
+    }
+
+    public SegmentText append(char[] s) {
+        for (char c : s) {
+            append(c);
+        }
+        return this;
+    }
+
+    public SegmentText append(char[] s, int count) {
+        for (int i = 0; i < count && i < s.length; i += 1) {
+            append(s[i]);
+        }
+        return this;
+    }
+
+    /* "00" to "99" */
+    public SegmentText appendTwoDigits(int value) {
+        return append(TWO_DIGITS[clampTwoDigits(value)]);
+    }
+
+    /* "!0" to "99", with the leading zero replaced by all-segments-off */
+    public SegmentText appendTwoDigitsBlankPadded(int value) {
+        return append(TWO_DIGITS_BLANK_PADDED[clampTwoDigits(value)]);
+    }
+
+    /**
+     * Appends a battery percentage as "!5%" (two-digit) or "!!5%"
+     * (three-digit), or question marks if the percentage is out of
+     * range.
+     */
+    public SegmentText appendBatteryPercentage(int percentage, boolean twoDigit, boolean sansPercentAt100) {
+        if (percentage < 0 || percentage > 100) {
+            return append(UNKNOWN, sansPercentAt100 ? 3 : 4);
+        }
+        char[] text = twoDigit ? BATTERY_TWO_DIGITS[percentage] : BATTERY_THREE_DIGITS[percentage];
+        if (sansPercentAt100 && percentage == 100) {
+            return append(text, text.length - 1);
+        }
+        return append(text);
+    }
+
+    public char[] getChars() {
+        return chars;
+    }
+
+    /* number of chars to draw, including letter spacing */
+    public int length() {
+        return length;
+    }
+
+    private static int clampTwoDigits(int value) {
+        if (value < 0) {
+            return 0;
+        }
+        if (value > 99) {
+            return 99;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,33 @@
+package com.webonastick.watchface.ledwatch;
+
+/**
+ * The custom colors the color chooser offers: hues across, saturations
+ * down, worked out once so drawing a swatch is an array index.
+ */
+public final class SwatchGrid {
+    public static final int HUES = 24;
+    public static final int SATURATIONS = 5;
+
+    /* row by row, most saturated first */
+    private static final int[] COLORS = new int[HUES * SATURATIONS];
+
+    static {
+        for (int row = 0; row < SATURATIONS; row += 1) {
+            float saturation = 1f - row / (float) SATURATIONS;
+            for (int column = 0; column < HUES; column += 1) {
+                COLORS[row * HUES + column] = Palette.fullColor(column / (float) HUES, saturation);
+            }
+        }
+    }
+
+    private SwatchGrid() {
+    }
+
+    public static int size() {
+        return COLORS.length;
+    }
+
+    public static int getColor(int index) {
+        return COLORS[index];
+    }
+}
@@ -0,0 +1,285 @@
+package com.webonastick.watchface.ledwatch;
+
+public class Utility {
+    public enum LEDWatchThemeMode {
+        LED("foreground", "led"),
+        LCD("background", "lcd"),
+        VINTAGE_LED("foreground", "vintage_led");
+
+        protected final String resourceName;
+        protected final String colorResourceType;
+
+        LEDWatchThemeMode(String colorResourceType, String resourceName) {
+            this.resourceName = resourceName;
+            this.colorResourceType = colorResourceType;
+        }
+
+        public String getResourceName() {
+            return resourceName;
+        }
+
+        public String getColorResourceType() {
+            return colorResourceType;
+        }
+
+        public static LEDWatchThemeMode findThemeModeNamed(String themeModeName) {
+            if (themeModeName == null) {
+                return null;
+            }
+            for (LEDWatchThemeMode themeMode : LEDWatchThemeMode.values()) {
+                if (themeModeName.equals(themeMode.resourceName)) {
+                    return themeMode;
+                }
+            }
+            return null;
+        }
+
+        public LEDWatchThemeMode nextThemeMode() {
+            int ordinal = this.ordinal();
+            int length = LEDWatchThemeMode.values().length;
+            ordinal = (ordinal + 1) % length;
+            return LEDWatchThemeMode.values()[ordinal];
+        }
+    }
+
+    public enum LEDWatchThemeColor {
+        RED("red"),
+        BRIGHT_RED("bright_red"),
+        ORANGE("orange"),
+        AMBER("amber"),
+        YELLOW("yellow"),
+        GREEN("green"),
+        CYAN("cyan"),
+        BLUE("blue"),
+        WHITE("white");
+
+        protected final String resourceName;
+
+        LEDWatchThemeColor(String resourceName) {
+            this.resourceName = resourceName;
+        }
+
+        public String getResourceName() {
+            return resourceName;
+        }
+
+        public static LEDWatchThemeColor findThemeColorNamed(String themeColorName) {
+            if (themeColorName == null) {
+                return null;
+            }
+            for (LEDWatchThemeColor themeColor : LEDWatchThemeColor.values()) {
+                if (themeColorName.equals(themeColor.resourceName)) {
+                    return themeColor;
+                }
+            }
+            return null;
+        }
+
+        public LEDWatchThemeColor nextThemeColor() {
+            int ordinal = this.ordinal();
+            int length = LEDWatchThemeColor.values().length;
+            ordinal = (ordinal + 1) % length;
+            return LEDWatchThemeColor.values()[ordinal];
+        }
+    }
+
+    public enum DSEGFontSize {
+        MINI("mini", "Mini-"),
+        NORMAL("normal", "-");
+
+        protected final String resourceName;
+        protected final String filenamePortion;
+
+        DSEGFontSize(String resourceName, String filenamePortion) {
+            this.resourceName = resourceName;
+            this.filenamePortion = filenamePortion;
+        }
+
+        public String getResourceName() {
+            return resourceName;
+        }
+
+        public String getFilenamePortion() {
+            return filenamePortion;
+        }
+
+        public static DSEGFontSize findSizeNamed(String sizeName) {
+            if (sizeName == null) {
+                return null;
+            }
+            for (DSEGFontSize size : DSEGFontSize.values()) {
+                if (sizeName.equals(size.resourceName)) {
+                    return size;
+                }
+            }
+            return null;
+        }
+
+        public DSEGFontSize nextSize() {
+            int ordinal = this.ordinal();
+            int length = DSEGFontSize.values().length;
+            ordinal = (ordinal + 1) % length;
+            return DSEGFontSize.values()[ordinal];
+        }
+    }
+
+    public enum DSEGFontSegments {
+        SEVEN("7"),
+        FOURTEEN("14");
+
+        protected final String filenamePortion;
+
+        DSEGFontSegments(String filenamePortion) {
+            this.filenamePortion = filenamePortion;
+        }
+
+        public String getFilenamePortion() {
+            return filenamePortion;
+        }
+    }
+
+    public enum DSEGFontFamily {
+        CLASSIC("classic", "Classic"),
+        MODERN("modern", "Modern");
+
+        protected final String resourceName;
+        protected final String filenamePortion;
+
+        DSEGFontFamily(String resourceName, String filenamePortion) {
+            this.resourceName = resourceName;
+            this.filenamePortion = filenamePortion;
+        }
+
+        public String getResourceName() {
+            return resourceName;
+        }
+
+        public String getFilenamePortion() {
+            return filenamePortion;
+        }
+
+        public static DSEGFontFamily findFamilyNamed(String familyName) {
+            if (familyName == null) {
+                return null;
+            }
+            for (DSEGFontFamily family : DSEGFontFamily.values()) {
+                if (familyName.equals(family.resourceName)) {
+                    return family;
+                }
+            }
+            return null;
+        }
+
+        public DSEGFontFamily nextFamily() {
+            int ordinal = this.ordinal();
+            int length = DSEGFontFamily.values().length;
+            ordinal = (ordinal + 1) % length;
+            return DSEGFontFamily.values()[ordinal];
+        }
+    }
+
+    public enum DSEGFontWeight {
+        LIGHT("light", "Light"),
+        REGULAR("regular", "Regular"),
+        BOLD("bold", "Bold");
+
+        protected final String resourceName;
+        protected final String filenamePortion;
+
+        DSEGFontWeight(String resourceName, String filenamePortion) {
+            this.resourceName = resourceName;
+            this.filenamePortion = filenamePortion;
+        }
+
+        public String getResourceName() {
+            return resourceName;
+        }
+
+        public String getFilenamePortion() {
+            return filenamePortion;
+        }
+
+        public static DSEGFontWeight findWeightNamed(String weightName) {
+            if (weightName == null) {
+                return null;
+            }
+            for (DSEGFontWeight weight : DSEGFontWeight.values()) {
+                if (weightName.equals(weight.resourceName)) {
+                    return weight;
+                }
+            }
+            return null;
+        }
+
+        public DSEGFontWeight nextWeight() {
+            int ordinal = this.ordinal();
+            int length = DSEGFontWeight.values().length;
+            ordinal = (ordinal + 1) % length;
+            return DSEGFontWeight.values()[ordinal];
+        }
+    }
+
+    public enum DSEGFontStyle {
+        NORMAL("normal", ""),
+        ITALIC("italic", "Italic");
+
+        protected final String resourceName;
+        protected final String filenamePortion;
+
+        DSEGFontStyle(String resourceName, String filenamePortion) {
+            this.resourceName = resourceName;
+            this.filenamePortion = filenamePortion;
+        }
+
+        public String getResourceName() {
+            return resourceName;
+        }
+
+        public String getFilenamePortion() {
+            return filenamePortion;
+        }
+
+        public static DSEGFontStyle findStyleNamed(String styleName) {
+            if (styleName == null) {
+                return null;
+            }
+            for (DSEGFontStyle style : DSEGFontStyle.values()) {
+                if (styleName.equals(style.resourceName)) {
+                    return style;
+                }
+            }
+            return null;
+        }
+
+        public DSEGFontStyle nextStyle() {
+            int ordinal = this.ordinal();
+            int length = DSEGFontStyle.values().length;
+            ordinal = (ordinal + 1) % length;
+            return DSEGFontStyle.values()[ordinal];
+        }
+    }
+
+    enum Region {
+        TOP,
+        MIDDLE,
+        BOTTOM,
+        WATCH_FACE_NAME
+    }
+
+    /* a field's share of a region, for hit testing */
+    enum Zone {
+        DAY_OF_WEEK(Region.TOP),
+        DAY_OF_MONTH(Region.TOP),
+        HOURS(Region.MIDDLE),
+        MINUTES(Region.MIDDLE),
+        BATTERY(Region.BOTTOM),
+        SECONDS(Region.BOTTOM),
+        WATCH_FACE_NAME(Region.WATCH_FACE_NAME);
+
+        public final Region region;
+
+        Zone(Region region) {
+            this.region = region;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.webonastick.watchface.ledwatch;
+
+/**
+ * Everything one frame of the watch face shows, and nothing about how
+ * it is drawn.  Two equal states draw identical frames, so a frame
+ * whose state equals the last one drawn can be skipped.
+ */
+public final class WatchFaceState {
+    /* 0 to 23 on a 24-hour clock, 1 to 12 otherwise */
+    private final int hour;
+    private final int minute;
+    private final int second;
+    private final boolean is24Hour;
+    private final boolean pm;
+    private final boolean colonVisible;
+
+    /* Calendar.SUNDAY through Calendar.SATURDAY */
+    private final int dayOfWeek;
+    private final int dayOfMonth;
+
+    /* 0 to 100, or -1 if unknown */
+    private final int batteryPercentage;
+
+    private final boolean ambient;
+    private final Utility.LEDWatchThemeMode themeMode;
+    private final Utility.LEDWatchThemeColor themeColor;
+
+    /* packed RGB picked by the user, overriding themeColor; zero if none */
+    private final int customColor;
+    private final DSEGFont font;
+
+    public WatchFaceState(int hour, int minute, int second, boolean is24Hour, boolean pm, boolean colonVisible,
+                          int dayOfWeek, int dayOfMonth, int batteryPercentage, boolean ambient,
+                          Utility.LEDWatchThemeMode themeMode, Utility.LEDWatchThemeColor themeColor,
+                          int customColor, DSEGFont font) {
+        this.hour = hour;
+        this.minute = minute;
+        this.second = second;
+        this.is24Hour = is24Hour;
+        this.pm = pm;
+        this.colonVisible = colonVisible;
+        this.dayOfWeek = dayOfWeek;
+        this.dayOfMonth = dayOfMonth;
+        this.batteryPercentage = batteryPercentage;
+        this.ambient = ambient;
+        this.themeMode = themeMode;
+        this.themeColor = themeColor;
+        this.customColor = customColor;
+        this.font = font;
+    }
+
+    public int getHour() {
+        return hour;
+    }
+
+    public int getMinute() {
+        return minute;
+    }
+
+    public int getSecond() {
+        return second;
+    }
+
+    public boolean is24Hour() {
+        return is24Hour;
+    }
+
+    public boolean isPM() {
+        return pm;
+    }
+
+    public boolean isColonVisible() {
+        return colonVisible;
+    }
+
+    public int getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    public int getDayOfMonth() {
+        return dayOfMonth;
+    }
+
+    public int getBatteryPercentage() {
+        return batteryPercentage;
+    }
+
+    public boolean isAmbient() {
+        return ambient;
+    }
+
+    public Utility.LEDWatchThemeMode getThemeMode() {
+        return themeMode;
+    }
+
+    public Utility.LEDWatchThemeColor getThemeColor() {
+        return themeColor;
+    }
+
+    public int getCustomColor() {
+        return customColor;
+    }
+
+    public DSEGFont getFont() {
+        return font;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WatchFaceState)) {
+            return false;
+        }
+        WatchFaceState s = (WatchFaceState) o;
+        return hour == s.hour &&
+                minute == s.minute &&
+                second == s.second &&
+                is24Hour == s.is24Hour &&
+                pm == s.pm &&
+                colonVisible == s.colonVisible &&
+                dayOfWeek == s.dayOfWeek &&
+                dayOfMonth == s.dayOfMonth &&
+                batteryPercentage == s.batteryPercentage &&
+                ambient == s.ambient &&
+                themeMode == s.themeMode &&
+                themeColor == s.themeColor &&
+                customColor == s.customColor &&
+                (font == null ? s.font == null : font.equals(s.font));
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hour;
+        h = 31 * h + minute;
+        h = 31 * h + second;
+        h = 31 * h + (is24Hour ? 1 : 0);
+        h = 31 * h + (pm ? 1 : 0);
+        h = 31 * h + (colonVisible ? 1 : 0);
+        h = 31 * h + dayOfWeek;
+        h = 31 * h + dayOfMonth;
+        h = 31 * h + batteryPercentage;
+        h = 31 * h + (ambient ? 1 : 0);
+        h = 31 * h + (themeMode == null ? 0 : themeMode.hashCode());
+        h = 31 * h + (themeColor == null ? 0 : themeColor.hashCode());
+        h = 31 * h + customColor;
+        h = 31 * h + (font == null ? 0 : font.hashCode());
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "WatchFaceState{" +
+                hour + (colonVisible ? ":" : " ") + minute + "." + second +
+                (is24Hour ? "" : pm ? " PM" : " AM") +
+                " day " + dayOfWeek + "/" + dayOfMonth +
+                " battery " + batteryPercentage +
+                (ambient ? " ambient" : "") +
+                " " + themeMode + "/" + (customColor != 0 ? String.format("#%06x", customColor & 0xffffff) : themeColor) +
+                " " + font +
+                "}";
+    }
+}
@@ -0,0 +1,129 @@
+package com.webonastick.watchface.ledwatch;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Builds a {@link WatchFaceState} for a point in time.
+ * <p>
+ * Time of day comes straight from the time zone offset; the day of
+ * the week and month only go through a Calendar when the day rolls
+ * over.  If nothing visible changed, the previous state is returned,
+ * so callers can compare states by identity.
+ */
+public class WatchFaceStateFactory {
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long MILLIS_PER_MINUTE = 60L * MILLIS_PER_SECOND;
+    private static final long MILLIS_PER_HOUR = 60L * MILLIS_PER_MINUTE;
+    private static final long MILLIS_PER_DAY = 24L * MILLIS_PER_HOUR;
+
+    /* the colon goes off for the rest of each second at this point */
+    public static final int BLINK_OFF_MILLIS = 400;
+
+    /* what screenshots and previews show */
+    public static final int DEMO_BATTERY_PERCENTAGE = 89;
+
+    private TimeZone timeZone;
+    private Calendar calendar;
+
+    /* [dayStart, dayEnd) is the day dayOfWeek and dayOfMonth are for */
+    private long dayStart = Long.MAX_VALUE;
+    private long dayEnd = Long.MIN_VALUE;
+    private int dayOfWeek;
+    private int dayOfMonth;
+
+    private WatchFaceState last = null;
+
+    public WatchFaceStateFactory(TimeZone timeZone) {
+        setTimeZone(timeZone);
+    }
+
+    public void setTimeZone(TimeZone timeZone) {
+        this.timeZone = timeZone;
+        this.calendar = Calendar.getInstance(timeZone);
+        invalidateDate();
+    }
+
+    public TimeZone getTimeZone() {
+        return timeZone;
+    }
+
+    /* call when the clock is set */
+    public void invalidateDate() {
+        dayStart = Long.MAX_VALUE;
+        dayEnd = Long.MIN_VALUE;
+    }
+
+    public WatchFaceState create(long timeMillis, int batteryPercentage, boolean is24Hour, boolean ambient,
+                                 boolean blinkingColon, Utility.LEDWatchThemeMode themeMode,
+                                 Utility.LEDWatchThemeColor themeColor, int customColor, DSEGFont font) {
+        if (timeMillis < dayStart || timeMillis >= dayEnd) {
+            updateDate(timeMillis);
+        }
+
+        long localMillis = timeMillis + timeZone.getOffset(timeMillis);
+        long millisOfDay = localMillis % MILLIS_PER_DAY;
+        if (millisOfDay < 0) {
+            millisOfDay += MILLIS_PER_DAY;
+        }
+        int hour24 = (int) (millisOfDay / MILLIS_PER_HOUR);
+        int minute = (int) (millisOfDay / MILLIS_PER_MINUTE % 60);
+        int second = (int) (millisOfDay / MILLIS_PER_SECOND % 60);
+        int millis = (int) (millisOfDay % MILLIS_PER_SECOND);
+
+        int hour;
+        if (is24Hour) {
+            hour = hour24;
+        } else {
+            hour = hour24 % 12;
+            if (hour == 0) {
+                hour = 12;
+            }
+        }
+        boolean pm = hour24 >= 12;
+        boolean colonVisible = !(blinkingColon && !ambient && millis >= BLINK_OFF_MILLIS);
+
+        WatchFaceState state = new WatchFaceState(
+                hour, minute, second, is24Hour, pm, colonVisible,
+                dayOfWeek, dayOfMonth, batteryPercentage, ambient,
+                themeMode, themeColor, customColor, font
+        );
+        if (state.equals(last)) {
+            return last;
+        }
+        last = state;
+        return state;
+    }
+
+    /* 10:58:50 AM on Sunday, June 30, 2013, twelve-hour, with the colon on */
+    public WatchFaceState createDemo(boolean ambient, Utility.LEDWatchThemeMode themeMode,
+                                     Utility.LEDWatchThemeColor themeColor, int customColor, DSEGFont font) {
+        return create(getDemoTimeMillis(), DEMO_BATTERY_PERCENTAGE, false, ambient, false,
+                themeMode, themeColor, customColor, font);
+    }
+
+    private long getDemoTimeMillis() {
+        Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.set(2013, Calendar.JUNE, 30, 10, 58, 50);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    private void updateDate(long timeMillis) {
+        calendar.setTimeInMillis(timeMillis);
+        dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
+        dayOfMonth = calendar.get(Calendar.DAY_OF_MONTH);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        dayStart = calendar.getTimeInMillis();
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        dayEnd = calendar.getTimeInMillis();
+    }
+
+    /* start of the day the last state is for, mainly for testing */
+    long getDayStart() {
+        return dayStart;
+    }
+}
@@ -0,0 +1,149 @@
+package com.webonastick.watchface.ledwatch;
+
+import java.text.DateFormatSymbols;
+import java.text.Normalizer;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Day of week abbreviations for one locale, mapped to characters the
+ * DSEG14 fonts can display, and built once so drawing a frame is
+ * just a lookup by {@link Calendar#DAY_OF_WEEK}.
+ * <p>
+ * Accents are removed, Greek and Cyrillic are transliterated, and
+ * locales whose abbreviations still can't be displayed (CJK, Arabic,
+ * Hebrew, and so on) or aren't unique within three characters fall
+ * back to English.
+ */
+public class WeekdayLabels {
+    public static final int MAX_LENGTH = 3;
+
+    private static final Map<Character, String> TRANSLITERATIONS = new HashMap<Character, String>();
+
+    static {
+        /* Latin letters that don't decompose into a base letter and accents */
+        addTransliterations("\u00c6AE \u00d8O \u0152OE \u0141L \u0110D \u00d0D \u00deTH \u0126H \u013fL \u014aN \u018fE \u1e9eSS");
+
+        /* Greek, after accents are removed */
+        addTransliterations("\u0391A \u0392V \u0393G \u0394D \u0395E \u0396Z \u0397I \u0398TH \u0399I \u039aK \u039bL \u039cM \u039dN \u039eX \u039fO \u03a0P \u03a1R \u03a3S \u03a4T \u03a5Y \u03a6F \u03a7CH \u03a8PS \u03a9O");
+
+        /* Cyrillic, after breves and diaereses are removed */
+        addTransliterations("\u0410A \u0411B \u0412V \u0413G \u0414D \u0415E \u0416ZH \u0417Z \u0418I \u041aK \u041bL \u041cM \u041dN \u041eO \u041fP \u0420R \u0421S \u0422T \u0423U \u0424F \u0425KH \u0426TS \u0427CH \u0428SH \u0429SHCH \u042aY \u042bY \u042cY \u042dE \u042eYU \u042fYA");
+        addTransliterations("\u0404YE \u0406I \u0490G \u0402DJ \u0408J \u0409LJ \u040aNJ \u040bC \u040fDZ \u0403GJ \u040cKJ \u0405DZ \u040eU \u04aeU \u0492G \u049aK \u04a2N \u04e8O \u04b0U \u04baH \u04d8A \u04b2H \u04b6J \u0496ZH \u04aaS");
+    }
+
+    private static void addTransliterations(String pairs) {
+        for (String pair : pairs.split(" ")) {
+            if (pair.length() >= 2) {
+                TRANSLITERATIONS.put(pair.charAt(0), pair.substring(1));
+            }
+        }
+    }
+
+    private final Locale locale;
+
+    /* indexed by Calendar.SUNDAY through Calendar.SATURDAY */
+    private final char[][] labels = new char[Calendar.SATURDAY + 1][];
+
+    public WeekdayLabels(Locale locale) {
+        this.locale = locale;
+        if (!setLabels(locale)) {
+            setLabels(Locale.ENGLISH);
+        }
+    }
+
+    /* returns false if any label can't be displayed or two labels are the same */
+    private boolean setLabels(Locale locale) {
+        String[] names = DateFormatSymbols.getInstance(locale).getShortWeekdays();
+        Set<String> seen = new HashSet<String>();
+        for (int day = Calendar.SUNDAY; day <= Calendar.SATURDAY; day += 1) {
+            String label = toSegmentText(names[day], locale);
+            if (label == null) {
+                return false;
+            }
+            if (label.length() > MAX_LENGTH) {
+                label = label.substring(0, MAX_LENGTH);
+            }
+            if (!seen.add(label)) {
+                return false;
+            }
+            labels[day] = label.toCharArray();
+        }
+        return true;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /* dayOfWeek is Calendar.SUNDAY through Calendar.SATURDAY */
+    public char[] get(int dayOfWeek) {
+        return labels[dayOfWeek];
+    }
+
+    /**
+     * Converts text to uppercase letters and digits the DSEG14 fonts
+     * can display, dropping punctuation and whitespace.  Returns null
+     * if any letter can't be converted or nothing is left.
+     */
+    static String toSegmentText(String s, Locale locale) {
+        if (s == null) {
+            return null;
+        }
+        s = s.toUpperCase(locale);
+
+        /* remove accents thx https://stackoverflow.com/a/3322174 */
+        s = Normalizer.normalize(s, Normalizer.Form.NFKD);
+
+        StringBuilder result = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i += 1) {
+            char c = s.charAt(i);
+            if (isDisplayable(c)) {
+                result.append(c);
+                continue;
+            }
+            int type = Character.getType(c);
+            if (type == Character.NON_SPACING_MARK ||
+                    type == Character.COMBINING_SPACING_MARK ||
+                    type == Character.ENCLOSING_MARK ||
+                    type == Character.FORMAT ||
+                    Character.isWhitespace(c) ||
+                    Character.isSpaceChar(c) ||
+                    isPunctuation(type)) {
+                continue;
+            }
+            String transliteration = TRANSLITERATIONS.get(c);
+            if (transliteration == null) {
+                return null;
+            }
+            result.append(transliteration);
+        }
+        if (result.length() == 0) {
+            return null;
+        }
+        return result.toString();
+    }
+
+    static boolean isDisplayable(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isPunctuation(int type) {
+        switch (type) {
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
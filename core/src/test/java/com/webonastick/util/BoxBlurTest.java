@@ -0,0 +1,96 @@
+package com.webonastick.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BoxBlurTest {
+    private static final int SIZE = 41;
+
+    private static int[] point(int value) {
+        int[] values = new int[SIZE * SIZE];
+        values[(SIZE / 2) * SIZE + SIZE / 2] = value;
+        return values;
+    }
+
+    private static long sum(int[] values) {
+        long sum = 0;
+        for (int v : values) {
+            sum += v;
+        }
+        return sum;
+    }
+
+    @Test
+    public void zeroSigmaLeavesValuesAlone() {
+        int[] values = point(255);
+        BoxBlur.blur(values, SIZE, SIZE, 0f);
+        assertArrayEquals(point(255), values);
+    }
+
+    @Test
+    public void boxRadiiApproximateSigma() {
+        for (float sigma = 1f; sigma <= 10f; sigma += 0.5f) {
+            int[] radii = BoxBlur.boxRadii(sigma);
+            float variance = 0;
+            for (int r : radii) {
+                int width = r * 2 + 1;
+                variance += (width * width - 1) / 12f;
+            }
+            assertEquals("sigma " + sigma, sigma, (float) Math.sqrt(variance), 0.5f);
+        }
+    }
+
+    @Test
+    public void blurSpreadsSymmetricallyAndKeepsMass() {
+        int[] values = point(255 * 1000);
+        BoxBlur.blur(values, SIZE, SIZE, 3f);
+        int c = SIZE / 2;
+        for (int d = 1; d < 8; d += 1) {
+            assertEquals(values[c * SIZE + c - d], values[c * SIZE + c + d]);
+            assertEquals(values[(c - d) * SIZE + c], values[(c + d) * SIZE + c]);
+            assertTrue(values[c * SIZE + c + d] <= values[c * SIZE + c + d - 1]);
+        }
+        assertEquals(255 * 1000, sum(values), 255 * 1000 / 100);
+    }
+
+    @Test
+    public void blurTreatsOutsideAsZero() {
+        int[] values = new int[SIZE * SIZE];
+        for (int i = 0; i < values.length; i += 1) {
+            values[i] = 255;
+        }
+        BoxBlur.blur(values, SIZE, SIZE, 2f);
+        int c = SIZE / 2;
+        assertEquals(255, values[c * SIZE + c]);
+        assertTrue(values[0] < 255);
+    }
+
+    @Test
+    public void blurStopsAtReach() {
+        /* vintage LED's 6dp glow at xhdpi */
+        float sigma = BoxBlur.radiusToSigma(12f);
+        int reach = BoxBlur.reach(sigma);
+        int size = reach * 2 + 11;
+        int c = size / 2;
+        int[] values = new int[size * size];
+        values[c * size + c] = 255 * 100000;
+        BoxBlur.blur(values, size, size, sigma);
+        for (int y = 0; y < size; y += 1) {
+            for (int x = 0; x < size; x += 1) {
+                if (Math.abs(x - c) > reach || Math.abs(y - c) > reach) {
+                    assertEquals(x + "," + y, 0, values[y * size + x]);
+                }
+            }
+        }
+        assertTrue(values[c * size + c + reach] > 0);
+    }
+
+    @Test
+    public void radiusToSigmaMatchesShadowLayer() {
+        assertEquals(0f, BoxBlur.radiusToSigma(0f), 0f);
+        assertEquals(0.57735f * 6f + 0.5f, BoxBlur.radiusToSigma(6f), 1e-6f);
+    }
+}
@@ -0,0 +1,92 @@
+package com.webonastick.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HSPColorTest {
+    private static int toArgb(HSPColor color) {
+        return 0xff000000 |
+                (Math.round(color.red() * 255f) << 16) |
+                (Math.round(color.green() * 255f) << 8) |
+                Math.round(color.blue() * 255f);
+    }
+
+    private static void assertClose(String message, int expected, int actual) {
+        for (int shift = 0; shift <= 24; shift += 8) {
+            int e = (expected >> shift) & 0xff;
+            int a = (actual >> shift) & 0xff;
+            assertTrue(message + String.format(": expected %08x, got %08x", expected, actual),
+                    Math.abs(e - a) <= HSPColor.EPSILON);
+        }
+    }
+
+    @Test
+    public void perceivedBrightnessIsIdenticalForEveryColor() {
+        for (int rgb = 0; rgb < 0x1000000; rgb += 1) {
+            float expected = HSPColor.fromRGB(
+                    ((rgb >> 16) & 0xff) / 255f,
+                    ((rgb >> 8) & 0xff) / 255f,
+                    (rgb & 0xff) / 255f
+            ).perceivedBrightness();
+            float actual = HSPColor.perceivedBrightness(0xff000000 | rgb);
+            if (expected != actual) {
+                assertEquals(String.format("%06x", rgb), expected, actual, 0f);
+            }
+        }
+    }
+
+    @Test
+    public void hspToArgbMatchesTheObjectApi() {
+        for (int h = 0; h <= 96; h += 1) {
+            for (int s = 0; s <= 32; s += 1) {
+                for (int p = 0; p <= 32; p += 1) {
+                    float hue = h / 96f;
+                    float saturation = s / 32f;
+                    float brightness = p / 32f;
+                    assertClose(hue + " " + saturation + " " + brightness,
+                            toArgb(new HSPColor(hue, saturation, brightness)),
+                            HSPColor.hspToArgb(hue, saturation, brightness));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void withBrightnessMatchesTheObjectApi() {
+        Random random = new Random(20191017);
+        for (int i = 0; i < 200000; i += 1) {
+            int argb = random.nextInt();
+            float brightness = random.nextFloat();
+            HSPColor color = HSPColor.fromRGB(
+                    ((argb >> 16) & 0xff) / 255f,
+                    ((argb >> 8) & 0xff) / 255f,
+                    (argb & 0xff) / 255f
+            );
+            color.setPerceivedBrightness(brightness);
+            int expected = (toArgb(color) & 0x00ffffff) | (argb & 0xff000000);
+            assertClose(String.format("%08x at %f", argb, brightness), expected,
+                    HSPColor.withBrightness(argb, brightness));
+        }
+    }
+
+    @Test
+    public void batchesMatchSingleColors() {
+        Random random = new Random(42);
+        int[] colors = new int[1000];
+        for (int i = 0; i < colors.length; i += 1) {
+            colors[i] = random.nextInt();
+        }
+        float[] brightness = new float[colors.length];
+        int[] dimmed = new int[colors.length];
+        HSPColor.perceivedBrightness(colors, brightness);
+        HSPColor.withBrightness(colors, 0.25f, dimmed);
+        for (int i = 0; i < colors.length; i += 1) {
+            assertEquals(HSPColor.perceivedBrightness(colors[i]), brightness[i], 0f);
+            assertEquals(HSPColor.withBrightness(colors[i], 0.25f), dimmed[i]);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.webonastick.watchface;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FrameMetricsTest {
+    private static final long MS = 1000000L;
+
+    /* frame i starts at i seconds and takes i milliseconds */
+    private static void recordFrames(FrameMetrics metrics, int from, int to) {
+        for (int i = from; i < to; i += 1) {
+            metrics.record(i * 1000 * MS, i * 1000 * MS + i * MS,
+                    i % 2 == 0 ? FrameMetrics.NOT_SCHEDULED : 3 * MS, i % 3 == 0, i == 0);
+        }
+    }
+
+    @Test
+    public void snapshotHasEveryField() {
+        FrameMetrics metrics = new FrameMetrics(8);
+        recordFrames(metrics, 0, 3);
+        FrameMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(3, snapshot.getCount());
+        assertEquals(3, snapshot.size());
+        assertEquals(-1, snapshot.getIntervalNanos(0));
+        assertEquals(1000 * MS, snapshot.getIntervalNanos(1));
+        assertEquals(2 * MS, snapshot.getDrawNanos(2));
+        assertEquals(FrameMetrics.NOT_SCHEDULED, snapshot.getWakeDeltaNanos(0));
+        assertEquals(3 * MS, snapshot.getWakeDeltaNanos(1));
+        assertTrue(snapshot.isAmbient(0));
+        assertFalse(snapshot.isAmbient(1));
+        assertTrue(snapshot.isBackgroundRebuilt(0));
+        assertFalse(snapshot.isBackgroundRebuilt(2));
+    }
+
+    @Test
+    public void keepsTheNewestFrames() {
+        FrameMetrics metrics = new FrameMetrics(4);
+        recordFrames(metrics, 0, 10);
+        FrameMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(10, snapshot.getCount());
+        assertEquals(4, snapshot.size());
+        for (int i = 0; i < snapshot.size(); i += 1) {
+            assertEquals((6 + i) * MS, snapshot.getDrawNanos(i));
+        }
+    }
+
+    @Test
+    public void percentilesLeaveOutMissingValues() {
+        FrameMetrics metrics = new FrameMetrics(200);
+        recordFrames(metrics, 1, 101);
+        FrameMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(50 * MS, snapshot.getDrawNanosPercentile(50));
+        assertEquals(99 * MS, snapshot.getDrawNanosPercentile(99));
+        assertEquals(100 * MS, snapshot.getDrawNanosPercentile(100));
+        assertEquals(1000 * MS, snapshot.getIntervalNanosPercentile(50));
+        assertEquals(3 * MS, snapshot.getWakeDeltaNanosPercentile(95));
+        assertEquals(-1, new FrameMetrics(1).snapshot().getDrawNanosPercentile(50));
+    }
+
+    @Test
+    public void dumpShowsTheLastFrames() {
+        FrameMetrics metrics = new FrameMetrics(16);
+        recordFrames(metrics, 0, 20);
+        StringWriter out = new StringWriter();
+        PrintWriter writer = new PrintWriter(out);
+        metrics.snapshot().dump(writer, 5);
+        writer.flush();
+        String dump = out.toString();
+        assertTrue(dump, dump.contains("20 frames recorded, last 16"));
+        assertTrue(dump, dump.contains("Last 5 frames"));
+        assertTrue(dump, dump.contains("19.00"));
+        assertFalse(dump, dump.contains("14.00 "));
+    }
+
+    @Test
+    public void snapshotsWhileRecordingHaveOnlyWholeFrames() throws InterruptedException {
+        final FrameMetrics metrics = new FrameMetrics(64);
+        final int frames = 2000000;
+        Thread recorder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < frames; i += 1) {
+                    metrics.record(i * 1000L, i * 1000L + i, i, false, false);
+                }
+            }
+        });
+        recorder.start();
+        int snapshots = 0;
+        while (recorder.isAlive() || snapshots == 0) {
+            FrameMetrics.Snapshot snapshot = metrics.snapshot();
+            for (int i = 0; i < snapshot.size(); i += 1) {
+                long frame = snapshot.getStartNanos(i) / 1000L;
+                assertEquals(frame, snapshot.getDrawNanos(i));
+                assertEquals(frame, snapshot.getWakeDeltaNanos(i));
+                if (i > 0) {
+                    assertEquals(frame - 1, snapshot.getStartNanos(i - 1) / 1000L);
+                }
+            }
+            snapshots += 1;
+        }
+        recorder.join();
+        assertEquals(frames, metrics.getCount());
+    }
+}
@@ -0,0 +1,94 @@
+package com.webonastick.watchface.ledwatch;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DSEGFontTest {
+    /* unit tests run from the module directory; the fonts ship in the wear module's assets */
+    private static final File ASSETS = new File("../wear/src/main/assets");
+
+    @Test
+    public void filenames() {
+        DSEGFont font = new DSEGFont(Utility.DSEGFontFamily.CLASSIC, Utility.DSEGFontSize.MINI,
+                Utility.DSEGFontWeight.BOLD, Utility.DSEGFontStyle.ITALIC);
+        assertEquals("fonts/DSEG7ClassicMini-BoldItalic.ttf", font.getFilename(Utility.DSEGFontSegments.SEVEN));
+        font = new DSEGFont(Utility.DSEGFontFamily.MODERN, Utility.DSEGFontSize.NORMAL,
+                Utility.DSEGFontWeight.REGULAR, Utility.DSEGFontStyle.NORMAL);
+        assertEquals("fonts/DSEG14Modern-Regular.ttf", font.getFilename(Utility.DSEGFontSegments.FOURTEEN));
+    }
+
+    @Test
+    public void everyCombinationIsShipped() {
+        assertTrue(ASSETS.getAbsolutePath(), ASSETS.isDirectory());
+        Set<String> filenames = new HashSet<String>();
+        for (Utility.DSEGFontFamily family : Utility.DSEGFontFamily.values()) {
+            for (Utility.DSEGFontSize size : Utility.DSEGFontSize.values()) {
+                for (Utility.DSEGFontWeight weight : Utility.DSEGFontWeight.values()) {
+                    for (Utility.DSEGFontStyle style : Utility.DSEGFontStyle.values()) {
+                        DSEGFont font = new DSEGFont(family, size, weight, style);
+                        for (Utility.DSEGFontSegments segments : Utility.DSEGFontSegments.values()) {
+                            String filename = font.getFilename(segments);
+                            assertTrue(filename, filenames.add(filename));
+                            assertTrue(filename, new File(ASSETS, filename).isFile());
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(48, filenames.size());
+    }
+
+    @Test
+    public void defaultFontsMatchThemes() {
+        assertEquals(Utility.DSEGFontWeight.REGULAR,
+                DSEGFont.getDefaultFont(Utility.LEDWatchThemeMode.LED).getWeight());
+        DSEGFont vintage = DSEGFont.getDefaultFont(Utility.LEDWatchThemeMode.VINTAGE_LED);
+        assertEquals(Utility.DSEGFontFamily.MODERN, vintage.getFamily());
+        assertEquals(Utility.DSEGFontWeight.LIGHT, vintage.getWeight());
+        assertEquals(Utility.DSEGFontWeight.BOLD,
+                DSEGFont.getDefaultFont(Utility.LEDWatchThemeMode.LCD).getWeight());
+    }
+
+    @Test
+    public void nextOptionsCycleThroughEveryValue() {
+        Utility.DSEGFontWeight weight = Utility.DSEGFontWeight.LIGHT;
+        Set<Utility.DSEGFontWeight> seen = new HashSet<Utility.DSEGFontWeight>();
+        for (int i = 0; i < Utility.DSEGFontWeight.values().length; i += 1) {
+            assertTrue(seen.add(weight));
+            weight = weight.nextWeight();
+        }
+        assertSame(Utility.DSEGFontWeight.LIGHT, weight);
+        assertSame(Utility.DSEGFontSize.NORMAL, Utility.DSEGFontSize.MINI.nextSize());
+        assertSame(Utility.DSEGFontStyle.NORMAL, Utility.DSEGFontStyle.ITALIC.nextStyle());
+        assertSame(Utility.DSEGFontFamily.CLASSIC, Utility.DSEGFontFamily.MODERN.nextFamily());
+    }
+
+    @Test
+    public void resourceNamesRoundTrip() {
+        for (Utility.DSEGFontStyle style : Utility.DSEGFontStyle.values()) {
+            assertSame(style, Utility.DSEGFontStyle.findStyleNamed(style.getResourceName()));
+        }
+        for (Utility.DSEGFontSize size : Utility.DSEGFontSize.values()) {
+            assertSame(size, Utility.DSEGFontSize.findSizeNamed(size.getResourceName()));
+        }
+        assertSame(null, Utility.DSEGFontWeight.findWeightNamed("heavy"));
+        assertSame(null, Utility.DSEGFontFamily.findFamilyNamed(null));
+    }
+
+    @Test
+    public void equality() {
+        DSEGFont a = DSEGFont.getDefaultFont(Utility.LEDWatchThemeMode.LED);
+        DSEGFont b = DSEGFont.getDefaultFont(Utility.LEDWatchThemeMode.LED);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertFalse(a.equals(a.withStyle(Utility.DSEGFontStyle.NORMAL)));
+    }
+}
@@ -0,0 +1,30 @@
+package com.webonastick.watchface.ledwatch;
+
+/**
+ * Measures text as if every character had the same advance and every
+ * typeface the same metrics, like a monospaced seven-segment font.
+ * <p>
+ * Good enough to exercise {@link LayoutSolver} on a JVM, in tests and
+ * benchmarks; the watch face itself uses a PaintMeasurer.
+ */
+public final class FixedPitchMeasurer implements LayoutSolver.Measurer {
+    /* of the text size, roughly DSEG's */
+    private static final float ADVANCE = 0.8f;
+    private static final float CAP_HEIGHT = 1f;
+    private static final float TOP = -1.1f;
+    private static final float BOTTOM = 0.2f;
+
+    private int measureCount = 0;
+
+    @Override
+    public LayoutSolver.Metrics measure(String font, float textSize, float textSkewX, String text) {
+        measureCount += 1;
+        float width = text.length() * ADVANCE * textSize;
+        return new LayoutSolver.Metrics(width, CAP_HEIGHT * textSize, width,
+                TOP * textSize, BOTTOM * textSize);
+    }
+
+    public int getMeasureCount() {
+        return measureCount;
+    }
+}
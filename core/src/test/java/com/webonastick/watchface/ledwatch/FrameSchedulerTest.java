@@ -0,0 +1,76 @@
+package com.webonastick.watchface.ledwatch;
+
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FrameSchedulerTest {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final TimeZone KOLKATA = TimeZone.getTimeZone("Asia/Kolkata");
+
+    /* 2019-06-30 10:58:50.000 UTC */
+    private static final long T = 1561892330000L;
+
+    @Test
+    public void blinkingColonWithSeconds() {
+        FrameScheduler scheduler = new FrameScheduler(true, true);
+        assertEquals(T + 400, scheduler.getNextChangeMillis(T, UTC));
+        assertEquals(T + 400, scheduler.getNextChangeMillis(T + 399, UTC));
+        assertEquals(T + 1000, scheduler.getNextChangeMillis(T + 400, UTC));
+        assertEquals(T + 1000, scheduler.getNextChangeMillis(T + 999, UTC));
+    }
+
+    @Test
+    public void secondsWithoutBlinking() {
+        FrameScheduler scheduler = new FrameScheduler(true, false);
+        assertEquals(T + 1000, scheduler.getNextChangeMillis(T, UTC));
+        assertEquals(T + 1000, scheduler.getNextChangeMillis(T + 400, UTC));
+    }
+
+    @Test
+    public void minuteRolloverOnly() {
+        FrameScheduler scheduler = new FrameScheduler(false, false);
+        assertEquals(T + 10000, scheduler.getNextChangeMillis(T, UTC));
+        assertEquals(T + 10000, scheduler.getNextChangeMillis(T + 9999, UTC));
+        assertEquals(T + 70000, scheduler.getNextChangeMillis(T + 10000, UTC));
+        assertEquals(10000, scheduler.getDelayMillis(T, UTC));
+    }
+
+    @Test
+    public void blinkingWithoutSecondsStillNeedsEachSecond() {
+        FrameScheduler scheduler = new FrameScheduler(false, true);
+        assertEquals(T + 400, scheduler.getNextChangeMillis(T + 100, UTC));
+        assertEquals(T + 1000, scheduler.getNextChangeMillis(T + 500, UTC));
+    }
+
+    @Test
+    public void halfHourOffsetRollsOverOnLocalMinutes() {
+        FrameScheduler scheduler = new FrameScheduler(false, false);
+        /* +05:30 keeps minutes aligned with UTC */
+        assertEquals(T + 10000, scheduler.getNextChangeMillis(T, KOLKATA));
+    }
+
+    @Test
+    public void framesMatchVisibleTransitions() {
+        FrameScheduler scheduler = new FrameScheduler(true, true);
+        WatchFaceStateFactory factory = new WatchFaceStateFactory(UTC);
+        DSEGFont font = DSEGFont.getDefaultFont(Utility.LEDWatchThemeMode.LED);
+        long t = T + 123;
+        WatchFaceState last = factory.create(t, 50, false, false, true,
+                Utility.LEDWatchThemeMode.LED, Utility.LEDWatchThemeColor.BLUE, 0, font);
+        int frames = 0;
+        while (t < T + 60000) {
+            t = scheduler.getNextChangeMillis(t, UTC);
+            WatchFaceState state = factory.create(t, 50, false, false, true,
+                    Utility.LEDWatchThemeMode.LED, Utility.LEDWatchThemeColor.BLUE, 0, font);
+            assertTrue("frame at " + t + " changes nothing", state != last);
+            last = state;
+            frames += 1;
+        }
+        /* colon off and seconds (with colon on) in each of 60 seconds */
+        assertEquals(120, frames);
+    }
+}
@@ -0,0 +1,54 @@
+package com.webonastick.watchface.ledwatch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class HitTestIndexTest {
+    private static HitTestIndex create() {
+        HitTestIndex index = new HitTestIndex();
+        index.reset(400, 400);
+        index.fill(0, 0, 200, 120, Utility.Zone.DAY_OF_WEEK);
+        index.fill(200, 0, 400, 120, Utility.Zone.DAY_OF_MONTH);
+        index.fill(0, 120, 210, 280, Utility.Zone.HOURS);
+        index.fill(210, 120, 400, 280, Utility.Zone.MINUTES);
+        index.fill(0, 280, 400, 400, Utility.Zone.BATTERY);
+        index.fill(0, 360, 400, 400, Utility.Zone.WATCH_FACE_NAME);
+        return index;
+    }
+
+    @Test
+    public void zonesSplitRegions() {
+        HitTestIndex index = create();
+        assertEquals(Utility.Zone.DAY_OF_WEEK, index.getZone(10, 10));
+        assertEquals(Utility.Zone.DAY_OF_MONTH, index.getZone(390, 10));
+        assertEquals(Utility.Zone.HOURS, index.getZone(205, 200));
+        assertEquals(Utility.Zone.MINUTES, index.getZone(215, 200));
+        assertEquals(Utility.Region.MIDDLE, index.getRegion(215, 200));
+        assertEquals(Utility.Region.TOP, index.getRegion(390, 10));
+    }
+
+    @Test
+    public void laterRectanglesWin() {
+        HitTestIndex index = create();
+        assertEquals(Utility.Zone.BATTERY, index.getZone(100, 355));
+        assertEquals(Utility.Zone.WATCH_FACE_NAME, index.getZone(100, 365));
+    }
+
+    @Test
+    public void outsideIsNull() {
+        HitTestIndex index = create();
+        assertNull(index.getZone(-1, 10));
+        assertNull(index.getZone(10, 400));
+        assertNull(new HitTestIndex().getRegion(0, 0));
+    }
+
+    @Test
+    public void resetEmptiesTheIndex() {
+        HitTestIndex index = create();
+        index.reset(200, 200);
+        assertNull(index.getZone(10, 10));
+        assertNull(index.getZone(300, 300));
+    }
+}
@@ -0,0 +1,80 @@
+package com.webonastick.watchface.ledwatch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LayoutArithmeticTest {
+    private static final String SEVEN = "fonts/DSEG7Classic-BoldItalic.ttf";
+    private static final String FOURTEEN = "fonts/DSEG14Classic-BoldItalic.ttf";
+
+    static LayoutSolver.Key key(Utility.LEDWatchThemeMode themeMode, boolean ambient) {
+        LayoutSolver.Key key = new LayoutSolver.Key();
+        key.themeMode = themeMode;
+        key.ambient = ambient;
+        key.round = true;
+        key.surfaceWidth = 390;
+        key.surfaceHeight = 390;
+        key.pixelDensity = 2f;
+        key.sevenSegmentFont = SEVEN;
+        key.fourteenSegmentFont = FOURTEEN;
+        key.sixthsOfAPieFont = SEVEN;
+        key.amPmFont = FOURTEEN;
+        key.letterSpacing = 1;
+        key.letterSpacing2 = 1;
+        key.smallerTextSizeRatio = 0.5f;
+        key.lineSpacingRatio = 0.25f;
+        key.leftSegments = "88";
+        key.middleSegments = ":";
+        key.rightSegments = "88";
+        key.topLeftSegments = "~~";
+        key.topRightSegments = "~88";
+        key.bottomLeftSegments = "888%";
+        key.bottomRightSegments = "~88";
+        return key;
+    }
+
+    @Test
+    public void letterSpacingGoesBetweenCharacters() {
+        assertEquals("8 8 : 8 8", LayoutSolver.addLetterSpacing("88:88", 1));
+        assertEquals("8  8", LayoutSolver.addLetterSpacing("88", 2));
+        assertEquals("88", LayoutSolver.addLetterSpacing("88", 0));
+        assertEquals("8", LayoutSolver.addLetterSpacing("8", 3));
+    }
+
+    @Test
+    public void timeOfDayIsCentered() {
+        LayoutSpec spec = new LayoutSolver(new FixedPitchMeasurer())
+                .solve(key(Utility.LEDWatchThemeMode.LED, false));
+        assertEquals(390f, spec.getXOffsetLeft() + spec.getXOffsetRight(), 0.01f);
+        assertEquals(195f, spec.getXOffsetMiddle(), 0.01f);
+        assertTrue(spec.getYOffsetTop() < spec.getYOffsetMiddle());
+        assertTrue(spec.getYOffsetMiddle() < spec.getYOffsetBottom());
+        for (int field = 0; field < LayoutSpec.FIELD_COUNT; field += 1) {
+            assertTrue("field " + field, spec.getFieldLeft(field) < spec.getFieldRight(field));
+            assertTrue("field " + field, spec.getFieldTop(field) < spec.getFieldBottom(field));
+        }
+    }
+
+    @Test
+    public void equalKeysMeasureOnce() {
+        FixedPitchMeasurer measurer = new FixedPitchMeasurer();
+        LayoutSolver solver = new LayoutSolver(measurer);
+        LayoutSpec spec = solver.solve(key(Utility.LEDWatchThemeMode.LED, false));
+        solver.solve(key(Utility.LEDWatchThemeMode.LED, true));
+        assertEquals(2, solver.getLayoutsComputed());
+
+        /* a fresh key equal to the first one */
+        assertSame(spec, solver.solve(key(Utility.LEDWatchThemeMode.LED, false)));
+
+        /* fonts are keyed by name, not by which typeface instance a registry last loaded */
+        LayoutSolver.Key reloaded = key(Utility.LEDWatchThemeMode.LED, false);
+        reloaded.sevenSegmentFont = new String(SEVEN);
+        reloaded.fourteenSegmentFont = new String(FOURTEEN);
+        assertSame(spec, solver.solve(reloaded));
+        assertEquals(2, solver.getLayoutsComputed());
+        assertEquals(measurer.getMeasureCount(), solver.getMetricsComputed());
+    }
+}
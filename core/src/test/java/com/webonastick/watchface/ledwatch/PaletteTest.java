@@ -0,0 +1,73 @@
+package com.webonastick.watchface.ledwatch;
+
+import com.webonastick.util.HSPColor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PaletteTest {
+    @Test
+    public void fullColorsHaveAChannelAtFullIntensity() {
+        assertEquals(0xffff0000, Palette.fullColor(0f, 1f));
+        assertEquals(0xffffffff, Palette.fullColor(0.5f, 0f));
+        for (int i = 0; i < SwatchGrid.size(); i += 1) {
+            int color = SwatchGrid.getColor(i);
+            int max = Math.max((color >> 16) & 0xff, Math.max((color >> 8) & 0xff, color & 0xff));
+            assertEquals(0xff, color >>> 24);
+            assertEquals(String.format("%08x", color), 0xff, max);
+        }
+    }
+
+    @Test
+    public void faintSegmentsAreAsBrightAsDarkRed() {
+        for (int i = 0; i < SwatchGrid.size(); i += 1) {
+            int color = SwatchGrid.getColor(i);
+            Palette palette = Palette.derive(Utility.LEDWatchThemeMode.LED, color);
+            assertEquals(color, palette.getThemeColor());
+            float faint = HSPColor.perceivedBrightness(color) * palette.getFaintAlpha() / 255f;
+            assertEquals(String.format("%08x", color), FaintAlpha.LED_FAINT, faint, 0.002f);
+        }
+    }
+
+    @Test
+    public void lcdBackgroundsAreNoBrighterThanTheBuiltInWhite() {
+        /* background_color_lcd_white in colors.xml */
+        float white = HSPColor.perceivedBrightness(0xffbfbfbf);
+        for (int i = 0; i < SwatchGrid.size(); i += 1) {
+            Palette palette = Palette.derive(Utility.LEDWatchThemeMode.LCD, SwatchGrid.getColor(i));
+            assertTrue(HSPColor.perceivedBrightness(palette.getThemeColor()) <= white + 0.01f);
+            assertTrue(palette.getFaintAlpha() > 0);
+        }
+    }
+
+    @Test
+    public void cacheDerivesEachPaletteOnce() {
+        PaletteCache cache = new PaletteCache(4);
+        int color = SwatchGrid.getColor(5);
+        Palette palette = cache.get(Utility.LEDWatchThemeMode.LED, color);
+        for (int i = 0; i < 10; i += 1) {
+            assertSame(palette, cache.get(Utility.LEDWatchThemeMode.LED, color));
+        }
+        assertEquals(1, cache.getDerivedCount());
+
+        cache.get(Utility.LEDWatchThemeMode.LCD, color);
+        assertEquals(2, cache.getDerivedCount());
+    }
+
+    @Test
+    public void cacheDropsLeastRecentlyUsedPalettes() {
+        PaletteCache cache = new PaletteCache(2);
+        cache.get(Utility.LEDWatchThemeMode.LED, SwatchGrid.getColor(0));
+        cache.get(Utility.LEDWatchThemeMode.LED, SwatchGrid.getColor(1));
+        cache.get(Utility.LEDWatchThemeMode.LED, SwatchGrid.getColor(0));
+        cache.get(Utility.LEDWatchThemeMode.LED, SwatchGrid.getColor(2));
+        assertEquals(3, cache.getDerivedCount());
+        cache.get(Utility.LEDWatchThemeMode.LED, SwatchGrid.getColor(0));
+        assertEquals(3, cache.getDerivedCount());
+        cache.get(Utility.LEDWatchThemeMode.LED, SwatchGrid.getColor(1));
+        assertEquals(4, cache.getDerivedCount());
+    }
+}
@@ -0,0 +1,191 @@
+package com.webonastick.watchface.ledwatch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PreferenceStoreTest {
+    /* remembers which threads wrote */
+    private static class FakeStorage implements PreferenceStore.Storage {
+        final Map<String, String> values = new HashMap<String, String>();
+        final List<Thread> writeThreads = new ArrayList<Thread>();
+
+        @Override
+        public synchronized Map<String, String> read() {
+            return new HashMap<String, String>(values);
+        }
+
+        @Override
+        public synchronized void write(Map<String, String> values) {
+            writeThreads.add(Thread.currentThread());
+            this.values.putAll(values);
+        }
+    }
+
+    private static Map<Utility.LEDWatchThemeMode, Utility.LEDWatchThemeColor> colors(Utility.LEDWatchThemeColor color) {
+        Map<Utility.LEDWatchThemeMode, Utility.LEDWatchThemeColor> colors =
+                new HashMap<Utility.LEDWatchThemeMode, Utility.LEDWatchThemeColor>();
+        colors.put(Utility.LEDWatchThemeMode.LED, color);
+        return colors;
+    }
+
+    @Test
+    public void burstOfSavesIsOneWriteOffTheCallingThread() throws InterruptedException {
+        FakeStorage storage = new FakeStorage();
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        PreferenceStore store = new PreferenceStore(storage, executor, TimeUnit.HOURS.toMillis(1));
+        store.load();
+
+        Utility.LEDWatchThemeColor color = Utility.LEDWatchThemeColor.BLUE;
+        for (int i = 0; i < 20; i += 1) {
+            color = color.nextThemeColor();
+            store.save(Utility.LEDWatchThemeMode.LED, colors(color));
+        }
+        assertEquals(0, storage.writeThreads.size());
+        assertEquals(color, store.getThemeColor(Utility.LEDWatchThemeMode.LED));
+
+        store.close();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1, storage.writeThreads.size());
+        assertNotSame(Thread.currentThread(), storage.writeThreads.get(0));
+        assertEquals(1, store.getWriteCount());
+        assertEquals(color.resourceName, storage.values.get("theme_color_" + Utility.LEDWatchThemeMode.LED.resourceName));
+    }
+
+    @Test
+    public void loadsWhatWasSaved() throws InterruptedException {
+        FakeStorage storage = new FakeStorage();
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        PreferenceStore store = new PreferenceStore(storage, executor);
+        store.load();
+        assertNull(store.getThemeMode());
+        assertNull(store.getThemeColor(Utility.LEDWatchThemeMode.LCD));
+
+        DSEGFont font = DSEGFont.getDefaultFont(Utility.LEDWatchThemeMode.LED)
+                .withWeight(Utility.DSEGFontWeight.BOLD);
+        /* the way the configuration activity saves a font */
+        storage.write(PreferenceStore.formatFont(Utility.LEDWatchThemeMode.LED, font));
+        store.save(Utility.LEDWatchThemeMode.LCD, colors(Utility.LEDWatchThemeColor.RED));
+        store.close();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        PreferenceStore reloaded = new PreferenceStore(storage, Executors.newSingleThreadScheduledExecutor());
+        reloaded.load();
+        assertEquals(Utility.LEDWatchThemeMode.LCD, reloaded.getThemeMode());
+        assertEquals(Utility.LEDWatchThemeColor.RED, reloaded.getThemeColor(Utility.LEDWatchThemeMode.LED));
+        assertEquals(font, reloaded.getFont(Utility.LEDWatchThemeMode.LED));
+        assertEquals(DSEGFont.getDefaultFont(Utility.LEDWatchThemeMode.LCD), reloaded.getFont(Utility.LEDWatchThemeMode.LCD));
+        reloaded.close();
+    }
+
+    @Test
+    public void flushWithNothingPendingDoesNotWrite() throws InterruptedException {
+        FakeStorage storage = new FakeStorage();
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        PreferenceStore store = new PreferenceStore(storage, executor);
+        store.load();
+        store.flush();
+        store.close();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, storage.writeThreads.size());
+    }
+
+    @Test
+    public void customColorSetWhileAWriteIsPendingIsNotLost() throws InterruptedException {
+        FakeStorage storage = new FakeStorage();
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        PreferenceStore store = new PreferenceStore(storage, executor, TimeUnit.HOURS.toMillis(1));
+        store.load();
+        assertEquals(0, store.getCustomColor(Utility.LEDWatchThemeMode.LED));
+
+        store.save(Utility.LEDWatchThemeMode.LED, colors(Utility.LEDWatchThemeColor.RED));
+        store.setCustomColor(Utility.LEDWatchThemeMode.LED, 0xff3399ff);
+        store.close();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        String key = PreferenceStore.customColorKey(Utility.LEDWatchThemeMode.LED);
+        assertEquals("3399ff", storage.values.get(key));
+        assertEquals(Utility.LEDWatchThemeMode.LED, PreferenceStore.findCustomColorThemeMode(key));
+
+        PreferenceStore reloaded = new PreferenceStore(storage, Executors.newSingleThreadScheduledExecutor());
+        reloaded.load();
+        assertEquals(0xff3399ff, reloaded.getCustomColor(Utility.LEDWatchThemeMode.LED));
+        assertEquals(0, reloaded.getCustomColor(Utility.LEDWatchThemeMode.LCD));
+        reloaded.close();
+    }
+
+    @Test
+    public void saveLeavesCustomColorsToTheConfigurationActivity() throws InterruptedException {
+        FakeStorage storage = new FakeStorage();
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        PreferenceStore store = new PreferenceStore(storage, executor, TimeUnit.HOURS.toMillis(1));
+        store.load();
+        String ledKey = PreferenceStore.customColorKey(Utility.LEDWatchThemeMode.LED);
+        String lcdKey = PreferenceStore.customColorKey(Utility.LEDWatchThemeMode.LCD);
+
+        /* reset by a double tap, then picked in the activity while the engine's write is pending */
+        store.setCustomColor(Utility.LEDWatchThemeMode.LED, 0);
+        store.save(Utility.LEDWatchThemeMode.LED, colors(Utility.LEDWatchThemeColor.RED));
+        storage.write(singleton(ledKey, "3399ff"));
+        store.adoptCustomColor(Utility.LEDWatchThemeMode.LED, 0xff3399ff);
+        storage.write(singleton(lcdKey, "ffcc00"));
+        store.adoptCustomColor(Utility.LEDWatchThemeMode.LCD, 0xffffcc00);
+        store.save(Utility.LEDWatchThemeMode.LCD, colors(Utility.LEDWatchThemeColor.RED));
+        store.close();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals("3399ff", storage.values.get(ledKey));
+        assertEquals("ffcc00", storage.values.get(lcdKey));
+        assertEquals(0xff3399ff, store.getCustomColor(Utility.LEDWatchThemeMode.LED));
+    }
+
+    private static Map<String, String> singleton(String key, String value) {
+        Map<String, String> values = new HashMap<String, String>();
+        values.put(key, value);
+        return values;
+    }
+
+    @Test
+    public void saveLeavesFontsToTheConfigurationActivity() throws InterruptedException {
+        FakeStorage storage = new FakeStorage();
+        DSEGFont font = DSEGFont.getDefaultFont(Utility.LEDWatchThemeMode.VINTAGE_LED)
+                .withFamily(Utility.DSEGFontFamily.CLASSIC);
+        storage.write(PreferenceStore.formatFont(Utility.LEDWatchThemeMode.VINTAGE_LED, font));
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        PreferenceStore store = new PreferenceStore(storage, executor, 0);
+        store.load();
+        assertEquals(font, store.getFont(Utility.LEDWatchThemeMode.VINTAGE_LED));
+
+        /* picked in the activity while the engine's write is pending */
+        store.save(Utility.LEDWatchThemeMode.VINTAGE_LED, colors(Utility.LEDWatchThemeColor.RED));
+        DSEGFont picked = font.withSize(Utility.DSEGFontSize.MINI);
+        storage.write(PreferenceStore.formatFont(Utility.LEDWatchThemeMode.VINTAGE_LED, picked));
+        store.setFont(Utility.LEDWatchThemeMode.VINTAGE_LED, picked);
+        store.close();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(picked, PreferenceStore.readFont(storage.read(), Utility.LEDWatchThemeMode.VINTAGE_LED));
+
+        for (String key : PreferenceStore.formatFont(Utility.LEDWatchThemeMode.VINTAGE_LED, picked).keySet()) {
+            assertEquals(key, Utility.LEDWatchThemeMode.VINTAGE_LED, PreferenceStore.findFontThemeMode(key));
+        }
+        assertNull(PreferenceStore.findFontThemeMode("font_led"));
+        assertNull(PreferenceStore.findFontThemeMode(PreferenceStore.customColorKey(Utility.LEDWatchThemeMode.LED)));
+    }
+
+    @Test
+    public void unreadableCustomColorsAreNone() {
+        assertEquals(0, PreferenceStore.parseCustomColor(null));
+        assertEquals(0, PreferenceStore.parseCustomColor(""));
+        assertEquals(0, PreferenceStore.parseCustomColor("blue!!"));
+        assertNull(PreferenceStore.findCustomColorThemeMode("theme_mode"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.webonastick.watchface.ledwatch;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WatchFaceStateFactoryTest {
+    private static final TimeZone NEW_YORK = TimeZone.getTimeZone("America/New_York");
+    private static final TimeZone KOLKATA = TimeZone.getTimeZone("Asia/Kolkata");
+
+    private static long millis(TimeZone timeZone, int year, int month, int day,
+                               int hour, int minute, int second, int millis) {
+        Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute, second);
+        calendar.set(Calendar.MILLISECOND, millis);
+        return calendar.getTimeInMillis();
+    }
+
+    private static final DSEGFont FONT = DSEGFont.getDefaultFont(Utility.LEDWatchThemeMode.LED);
+
+    private static WatchFaceState create(WatchFaceStateFactory factory, long timeMillis, boolean is24Hour) {
+        return factory.create(timeMillis, 50, is24Hour, false, true,
+                Utility.LEDWatchThemeMode.LED, Utility.LEDWatchThemeColor.BLUE, 0, FONT);
+    }
+
+    @Test
+    public void twelveAndTwentyFourHourClocks() {
+        WatchFaceStateFactory factory = new WatchFaceStateFactory(NEW_YORK);
+        long midnight = millis(NEW_YORK, 2019, Calendar.JUNE, 30, 0, 5, 0, 0);
+        long afternoon = millis(NEW_YORK, 2019, Calendar.JUNE, 30, 13, 58, 50, 0);
+
+        WatchFaceState s = create(factory, midnight, false);
+        assertEquals(12, s.getHour());
+        assertFalse(s.isPM());
+        s = create(factory, midnight, true);
+        assertEquals(0, s.getHour());
+
+        s = create(factory, afternoon, false);
+        assertEquals(1, s.getHour());
+        assertEquals(58, s.getMinute());
+        assertEquals(50, s.getSecond());
+        assertTrue(s.isPM());
+        s = create(factory, afternoon, true);
+        assertEquals(13, s.getHour());
+    }
+
+    @Test
+    public void halfHourOffset() {
+        WatchFaceStateFactory factory = new WatchFaceStateFactory(KOLKATA);
+        WatchFaceState s = create(factory, millis(KOLKATA, 2019, Calendar.JANUARY, 1, 23, 45, 7, 0), true);
+        assertEquals(23, s.getHour());
+        assertEquals(45, s.getMinute());
+        assertEquals(7, s.getSecond());
+    }
+
+    @Test
+    public void colonBlinksOnlyWhenInteractive() {
+        WatchFaceStateFactory factory = new WatchFaceStateFactory(NEW_YORK);
+        long on = millis(NEW_YORK, 2019, Calendar.JUNE, 30, 10, 0, 0, 399);
+        long off = on + 1;
+        assertTrue(create(factory, on, false).isColonVisible());
+        assertFalse(create(factory, off, false).isColonVisible());
+        assertTrue(factory.create(off, 50, false, true, true,
+                Utility.LEDWatchThemeMode.LED, Utility.LEDWatchThemeColor.BLUE, 0, FONT).isColonVisible());
+        assertTrue(factory.create(off, 50, false, false, false,
+                Utility.LEDWatchThemeMode.LED, Utility.LEDWatchThemeColor.BLUE, 0, FONT).isColonVisible());
+    }
+
+    @Test
+    public void dateRollsOverAtMidnight() {
+        WatchFaceStateFactory factory = new WatchFaceStateFactory(NEW_YORK);
+        long beforeMidnight = millis(NEW_YORK, 2019, Calendar.JUNE, 30, 23, 59, 59, 999);
+        WatchFaceState s = create(factory, beforeMidnight, false);
+        assertEquals(30, s.getDayOfMonth());
+        assertEquals(Calendar.SUNDAY, s.getDayOfWeek());
+
+        s = create(factory, beforeMidnight + 1, false);
+        assertEquals(1, s.getDayOfMonth());
+        assertEquals(Calendar.MONDAY, s.getDayOfWeek());
+        assertEquals(12, s.getHour());
+        assertEquals(0, s.getMinute());
+    }
+
+    @Test
+    public void daylightSavingTimeDay() {
+        WatchFaceStateFactory factory = new WatchFaceStateFactory(NEW_YORK);
+        /* 2:00 EST becomes 3:00 EDT; the day is 23 hours long */
+        long start = millis(NEW_YORK, 2019, Calendar.MARCH, 10, 0, 0, 0, 0);
+        WatchFaceState s = create(factory, start + 3 * 3600000L, true);
+        assertEquals(4, s.getHour());
+        assertEquals(10, s.getDayOfMonth());
+        assertEquals(start, factory.getDayStart());
+
+        s = create(factory, start + 23 * 3600000L, true);
+        assertEquals(0, s.getHour());
+        assertEquals(11, s.getDayOfMonth());
+    }
+
+    @Test
+    public void timeZoneChangeRecomputesDate() {
+        WatchFaceStateFactory factory = new WatchFaceStateFactory(NEW_YORK);
+        long t = millis(NEW_YORK, 2019, Calendar.JUNE, 30, 20, 0, 0, 0);
+        assertEquals(30, create(factory, t, true).getDayOfMonth());
+        factory.setTimeZone(KOLKATA);
+        WatchFaceState s = create(factory, t, true);
+        assertEquals(1, s.getDayOfMonth());
+        assertEquals(5, s.getHour());
+        assertEquals(30, s.getMinute());
+    }
+
+    @Test
+    public void unchangedStateIsReused() {
+        WatchFaceStateFactory factory = new WatchFaceStateFactory(NEW_YORK);
+        long t = millis(NEW_YORK, 2019, Calendar.JUNE, 30, 10, 0, 0, 0);
+        WatchFaceState s1 = create(factory, t, false);
+        WatchFaceState s2 = create(factory, t + 100, false);
+        assertSame(s1, s2);
+        WatchFaceState s3 = create(factory, t + 500, false);
+        assertNotSame(s1, s3);
+        assertFalse(s1.equals(s3));
+        WatchFaceState s4 = factory.create(t + 500, 49, false, false, true,
+                Utility.LEDWatchThemeMode.LED, Utility.LEDWatchThemeColor.BLUE, 0, FONT);
+        assertFalse(s3.equals(s4));
+        WatchFaceState s5 = factory.create(t + 500, 49, false, false, true,
+                Utility.LEDWatchThemeMode.LCD, Utility.LEDWatchThemeColor.BLUE, 0, FONT);
+        assertFalse(s4.equals(s5));
+        WatchFaceState s6 = factory.create(t + 500, 49, false, false, true,
+                Utility.LEDWatchThemeMode.LCD, Utility.LEDWatchThemeColor.BLUE, 0,
+                FONT.withWeight(Utility.DSEGFontWeight.BOLD));
+        assertFalse(s5.equals(s6));
+    }
+
+    @Test
+    public void demoTimeIsTheSameInEveryTimeZone() {
+        for (TimeZone timeZone : new TimeZone[] { NEW_YORK, KOLKATA }) {
+            WatchFaceState s = new WatchFaceStateFactory(timeZone).createDemo(false,
+                    Utility.LEDWatchThemeMode.LED, Utility.LEDWatchThemeColor.BLUE, 0, FONT);
+            assertEquals(10, s.getHour());
+            assertEquals(58, s.getMinute());
+            assertEquals(50, s.getSecond());
+            assertFalse(s.isPM());
+            assertTrue(s.isColonVisible());
+            assertEquals(Calendar.SUNDAY, s.getDayOfWeek());
+            assertEquals(30, s.getDayOfMonth());
+            assertEquals(WatchFaceStateFactory.DEMO_BATTERY_PERCENTAGE, s.getBatteryPercentage());
+        }
+    }
+}
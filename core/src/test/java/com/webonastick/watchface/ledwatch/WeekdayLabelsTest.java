@@ -0,0 +1,68 @@
+package com.webonastick.watchface.ledwatch;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the day of week labels for every locale the host JDK knows
+ * about.
+ */
+public class WeekdayLabelsTest {
+    @Test
+    public void everyLocale_hasSevenDisplayableUniqueLabels() {
+        for (Locale locale : Locale.getAvailableLocales()) {
+            WeekdayLabels labels = new WeekdayLabels(locale);
+            Set<String> seen = new HashSet<String>();
+            for (int day = Calendar.SUNDAY; day <= Calendar.SATURDAY; day += 1) {
+                String label = new String(labels.get(day));
+                assertTrue(locale + ": empty label", label.length() > 0);
+                assertTrue(locale + ": " + label + " too long", label.length() <= WeekdayLabels.MAX_LENGTH);
+                for (char c : labels.get(day)) {
+                    assertTrue(locale + ": " + label + " not displayable", WeekdayLabels.isDisplayable(c));
+                }
+                assertTrue(locale + ": " + label + " repeated", seen.add(label));
+            }
+        }
+    }
+
+    @Test
+    public void english() {
+        WeekdayLabels labels = new WeekdayLabels(Locale.ENGLISH);
+        assertEquals("SUN", new String(labels.get(Calendar.SUNDAY)));
+        assertEquals("SAT", new String(labels.get(Calendar.SATURDAY)));
+    }
+
+    @Test
+    public void accentsRemoved() {
+        assertEquals("SAB", WeekdayLabels.toSegmentText("s\u00e1b.", new Locale("es")));
+        assertEquals("CAR", WeekdayLabels.toSegmentText("\u00c7ar", new Locale("tr")));
+    }
+
+    @Test
+    public void turkishDottedI() {
+        assertEquals("PZI", WeekdayLabels.toSegmentText("pzi", new Locale("tr")));
+        assertEquals("SALI", WeekdayLabels.toSegmentText("Sal\u0131", new Locale("tr")));
+    }
+
+    @Test
+    public void greekAndCyrillicTransliterated() {
+        assertEquals("KYR", WeekdayLabels.toSegmentText("\u039a\u03c5\u03c1", new Locale("el")));
+        assertEquals("PN", WeekdayLabels.toSegmentText("\u043f\u043d", new Locale("ru")));
+        assertEquals("SHCH", WeekdayLabels.toSegmentText("\u0449", new Locale("ru")));
+    }
+
+    @Test
+    public void cjkFallsBackToEnglish() {
+        assertNull(WeekdayLabels.toSegmentText("\u5468\u4e00", Locale.CHINESE));
+        WeekdayLabels labels = new WeekdayLabels(Locale.CHINESE);
+        assertEquals("MON", new String(labels.get(Calendar.MONDAY)));
+        labels = new WeekdayLabels(Locale.JAPANESE);
+        assertEquals("MON", new String(labels.get(Calendar.MONDAY)));
+    }
+}
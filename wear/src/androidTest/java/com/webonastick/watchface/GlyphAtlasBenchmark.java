@@ -0,0 +1,208 @@
+package com.webonastick.watchface;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the frame time of drawing the time of day, date, battery,
+ * and seconds with {@code Canvas.drawText} against blitting from a
+ * {@link GlyphAtlas}, with the LCD theme's shadow layer, and atlases
+ * with the vintage LED glow against atlases without.  Results go to
+ * logcat under the GlyphAtlasBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class GlyphAtlasBenchmark {
+    private static final String TAG = "GlyphAtlasBenchmark";
+
+    private static final int SIZE = 390;
+    private static final int WARMUP_FRAMES = 50;
+    private static final int FRAMES = 500;
+
+    private static final char[][] TIMES = {
+            "1 2".toCharArray(), "5 9".toCharArray(), "! 8".toCharArray(), "0 3".toCharArray()
+    };
+    private static final char[] COLON = ":".toCharArray();
+    private static final char[] WEEKDAY = "W E D".toCharArray();
+    private static final char[] DATE = "! 1 7".toCharArray();
+    private static final char[] BATTERY = "! 8 9 %".toCharArray();
+    private static final char[] SECONDS = "! 4 2".toCharArray();
+
+    private Typeface mSevenSegment;
+    private Typeface mFourteenSegment;
+
+    private Bitmap mBitmap;
+    private Canvas mCanvas;
+    private Paint mTimePaint;
+    private Paint mSmallPaint;
+    private Paint mSmall14Paint;
+    private GlyphAtlas mTimeAtlas;
+    private GlyphAtlas mSmallAtlas;
+    private GlyphAtlas mSmall14Atlas;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        mSevenSegment = Typeface.createFromAsset(context.getAssets(), "fonts/DSEG7Classic-BoldItalic.ttf");
+        mFourteenSegment = Typeface.createFromAsset(context.getAssets(), "fonts/DSEG14Classic-BoldItalic.ttf");
+
+        float radius = 4f;
+        float dx = 4f;
+        float dy = 8f;
+        int shadowColor = 0x33000000;
+
+        mTimePaint = createPaint(mSevenSegment, 110f, radius, dx, dy, shadowColor);
+        mSmallPaint = createPaint(mSevenSegment, 55f, radius, dx, dy, shadowColor);
+        mSmall14Paint = createPaint(mFourteenSegment, 55f, radius, dx, dy, shadowColor);
+
+        mTimeAtlas = new GlyphAtlas(mTimePaint, radius, dx, dy, shadowColor, "0123456789!:");
+        mSmallAtlas = new GlyphAtlas(mSmallPaint, radius, dx, dy, shadowColor, "0123456789!");
+        mSmall14Atlas = new GlyphAtlas(mSmall14Paint, radius, dx, dy, shadowColor, "0123456789!%?ABCDEFGHIJKLMNOPQRSTUVWXYZ");
+
+        mBitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        mCanvas = new Canvas(mBitmap);
+    }
+
+    @After
+    public void tearDown() {
+        mTimeAtlas.recycle();
+        mSmallAtlas.recycle();
+        mSmall14Atlas.recycle();
+        mBitmap.recycle();
+    }
+
+    private static Paint createPaint(Typeface typeface, float textSize,
+                                     float radius, float dx, float dy, int shadowColor) {
+        Paint paint = new Paint();
+        paint.setTypeface(typeface);
+        paint.setTextSize(textSize);
+        paint.setTextSkewX(0.04f);
+        paint.setColor(Color.BLACK);
+        paint.setAntiAlias(true);
+        if (radius > 0) {
+            paint.setShadowLayer(radius, dx, dy, shadowColor);
+        }
+        return paint;
+    }
+
+    @Test
+    public void compareGlowWithPlain() {
+        float radius = 12f;
+        int glowColor = 0xffff0000;
+        long setupStart = SystemClock.elapsedRealtimeNanos();
+        GlyphAtlas glowTime = new GlyphAtlas(createPaint(mSevenSegment, 110f, radius, 0, 0, glowColor),
+                radius, 0, 0, glowColor, "0123456789!:");
+        GlyphAtlas glowSmall = new GlyphAtlas(createPaint(mSevenSegment, 55f, radius, 0, 0, glowColor),
+                radius, 0, 0, glowColor, "0123456789!");
+        GlyphAtlas glowSmall14 = new GlyphAtlas(createPaint(mFourteenSegment, 55f, radius, 0, 0, glowColor),
+                radius, 0, 0, glowColor, "0123456789!%?ABCDEFGHIJKLMNOPQRSTUVWXYZ");
+        long setupNanos = SystemClock.elapsedRealtimeNanos() - setupStart;
+        GlyphAtlas plainTime = new GlyphAtlas(createPaint(mSevenSegment, 110f, 0, 0, 0, 0),
+                0, 0, 0, 0, "0123456789!:");
+        GlyphAtlas plainSmall = new GlyphAtlas(createPaint(mSevenSegment, 55f, 0, 0, 0, 0),
+                0, 0, 0, 0, "0123456789!");
+        GlyphAtlas plainSmall14 = new GlyphAtlas(createPaint(mFourteenSegment, 55f, 0, 0, 0, 0),
+                0, 0, 0, 0, "0123456789!%?ABCDEFGHIJKLMNOPQRSTUVWXYZ");
+
+        for (int i = 0; i < WARMUP_FRAMES; i += 1) {
+            drawFrameWithAtlas(i, glowTime, glowSmall, glowSmall14);
+            drawFrameWithAtlas(i, plainTime, plainSmall, plainSmall14);
+        }
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < FRAMES; i += 1) {
+            drawFrameWithAtlas(i, glowTime, glowSmall, glowSmall14);
+        }
+        long glowNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < FRAMES; i += 1) {
+            drawFrameWithAtlas(i, plainTime, plainSmall, plainSmall14);
+        }
+        long plainNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        Log.i(TAG, String.format("glow setup: %.1f ms", setupNanos / 1000000f));
+        Log.i(TAG, String.format("glow:  %.1f us/frame", glowNanos / 1000f / FRAMES));
+        Log.i(TAG, String.format("plain: %.1f us/frame", plainNanos / 1000f / FRAMES));
+
+        glowTime.recycle();
+        glowSmall.recycle();
+        glowSmall14.recycle();
+        plainTime.recycle();
+        plainSmall.recycle();
+        plainSmall14.recycle();
+    }
+
+    @Test
+    public void compareFrameTimes() {
+        for (int i = 0; i < WARMUP_FRAMES; i += 1) {
+            drawFrameWithText(i);
+            drawFrameWithAtlas(i, mTimeAtlas, mSmallAtlas, mSmall14Atlas);
+        }
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < FRAMES; i += 1) {
+            drawFrameWithText(i);
+        }
+        long textNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        start = SystemClock.elapsedRealtimeNanos();
+        boolean drawn = true;
+        for (int i = 0; i < FRAMES; i += 1) {
+            drawn &= drawFrameWithAtlas(i, mTimeAtlas, mSmallAtlas, mSmall14Atlas);
+        }
+        long atlasNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        Log.i(TAG, String.format("drawText: %.1f us/frame", textNanos / 1000f / FRAMES));
+        Log.i(TAG, String.format("atlas:    %.1f us/frame", atlasNanos / 1000f / FRAMES));
+        Log.i(TAG, String.format("atlas bitmaps: %d bytes",
+                mTimeAtlas.getByteCount() + mSmallAtlas.getByteCount() + mSmall14Atlas.getByteCount()));
+        assertTrue("every glyph should be in an atlas", drawn);
+    }
+
+    private void drawFrameWithText(int frame) {
+        mCanvas.drawColor(Color.WHITE);
+        char[] time = TIMES[frame % TIMES.length];
+        mTimePaint.setTextAlign(Paint.Align.LEFT);
+        mCanvas.drawText(time, 0, time.length, 20, 240, mTimePaint);
+        mTimePaint.setTextAlign(Paint.Align.CENTER);
+        mCanvas.drawText(COLON, 0, COLON.length, SIZE / 2f, 240, mTimePaint);
+        mSmall14Paint.setTextAlign(Paint.Align.LEFT);
+        mCanvas.drawText(WEEKDAY, 0, WEEKDAY.length, 40, 100, mSmall14Paint);
+        mSmallPaint.setTextAlign(Paint.Align.RIGHT);
+        mCanvas.drawText(DATE, 0, DATE.length, SIZE - 40, 100, mSmallPaint);
+        mSmall14Paint.setTextAlign(Paint.Align.LEFT);
+        mCanvas.drawText(BATTERY, 0, BATTERY.length, 40, 340, mSmall14Paint);
+        mSmallPaint.setTextAlign(Paint.Align.RIGHT);
+        mCanvas.drawText(SECONDS, 0, SECONDS.length, SIZE - 40, 340, mSmallPaint);
+    }
+
+    private boolean drawFrameWithAtlas(int frame, GlyphAtlas timeAtlas, GlyphAtlas smallAtlas,
+                                       GlyphAtlas small14Atlas) {
+        mCanvas.drawColor(Color.WHITE);
+        char[] time = TIMES[frame % TIMES.length];
+        boolean drawn = true;
+        drawn &= timeAtlas.drawText(mCanvas, time, time.length, 20, 240, Paint.Align.LEFT);
+        drawn &= timeAtlas.drawText(mCanvas, COLON, COLON.length, SIZE / 2f, 240, Paint.Align.CENTER);
+        drawn &= small14Atlas.drawText(mCanvas, WEEKDAY, WEEKDAY.length, 40, 100, Paint.Align.LEFT);
+        drawn &= smallAtlas.drawText(mCanvas, DATE, DATE.length, SIZE - 40, 100, Paint.Align.RIGHT);
+        drawn &= small14Atlas.drawText(mCanvas, BATTERY, BATTERY.length, 40, 340, Paint.Align.LEFT);
+        drawn &= smallAtlas.drawText(mCanvas, SECONDS, SECONDS.length, SIZE - 40, 340, Paint.Align.RIGHT);
+        return drawn;
+    }
+}
@@ -0,0 +1,133 @@
+package com.webonastick.watchface;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that each glyph's shadow in a {@link GlyphAtlas} fits in its
+ * own cell, whatever else is in the atlas, and that a string's shadow
+ * goes under all of its glyphs.
+ */
+@RunWith(AndroidJUnit4.class)
+public class GlyphAtlasTest {
+    private static final String GLYPHS = "0123456789!:";
+
+    private Typeface mSevenSegment;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        mSevenSegment = Typeface.createFromAsset(context.getAssets(), "fonts/DSEG7Classic-BoldItalic.ttf");
+    }
+
+    private Paint createPaint() {
+        Paint paint = new Paint();
+        paint.setTypeface(mSevenSegment);
+        paint.setTextSize(110f);
+        paint.setTextSkewX(0.04f);
+        paint.setColor(Color.WHITE);
+        paint.setAntiAlias(true);
+        return paint;
+    }
+
+    private static int[] getCellPixels(GlyphAtlas atlas, char c) {
+        Rect cell = atlas.getShadowCell(c);
+        assertNotNull("no shadow cell for " + c, cell);
+        int[] pixels = new int[cell.width() * cell.height()];
+        atlas.getBitmap().getPixels(pixels, 0, cell.width(), cell.left, cell.top, cell.width(), cell.height());
+        return pixels;
+    }
+
+    private void checkShadowCells(float radius, float dx, float dy) {
+        Paint paint = createPaint();
+        int color = 0xffff0000;
+        GlyphAtlas atlas = new GlyphAtlas(paint, radius, dx, dy, color, GLYPHS);
+        try {
+            for (char c : GLYPHS.toCharArray()) {
+                int[] pixels = getCellPixels(atlas, c);
+                Rect cell = atlas.getShadowCell(c);
+                int width = cell.width();
+                int height = cell.height();
+                int lit = 0;
+                for (int y = 0; y < height; y += 1) {
+                    for (int x = 0; x < width; x += 1) {
+                        int alpha = Color.alpha(pixels[y * width + x]);
+                        lit += alpha > 0 ? 1 : 0;
+                        if (x == 0 || y == 0 || x == width - 1 || y == height - 1) {
+                            assertEquals("shadow of " + c + " cut off at " + x + "," + y, 0, alpha);
+                        }
+                    }
+                }
+                assertTrue("no shadow for " + c, lit > 0);
+
+                /* nothing from any other glyph in the cell */
+                GlyphAtlas alone = new GlyphAtlas(paint, radius, dx, dy, color, String.valueOf(c));
+                try {
+                    assertArrayEquals("shadow of " + c, getCellPixels(alone, c), pixels);
+                } finally {
+                    alone.recycle();
+                }
+            }
+        } finally {
+            atlas.recycle();
+        }
+    }
+
+    @Test
+    public void vintageLEDGlowStaysInItsCell() {
+        /* 6dp at xhdpi */
+        checkShadowCells(12f, 0f, 0f);
+    }
+
+    @Test
+    public void offsetShadowStaysInItsCell() {
+        checkShadowCells(4f, 4f, 8f);
+    }
+
+    @Test
+    public void shadowGoesUnderEveryGlyph() {
+        Paint paint = createPaint();
+        GlyphAtlas atlas = new GlyphAtlas(paint, 12f, 0f, 0f, 0xffff0000, GLYPHS);
+        Bitmap one = Bitmap.createBitmap(400, 200, Bitmap.Config.ARGB_8888);
+        Bitmap two = Bitmap.createBitmap(400, 200, Bitmap.Config.ARGB_8888);
+        try {
+            char[] eights = "88".toCharArray();
+            assertTrue(atlas.drawText(new Canvas(one), eights, 1, 40, 150, Paint.Align.LEFT));
+            assertTrue(atlas.drawText(new Canvas(two), eights, 2, 40, 150, Paint.Align.LEFT));
+
+            /* the right edge of the first 8's ink, where the second 8 glows */
+            int found = -1;
+            for (int x = one.getWidth() - 1; x >= 0 && found < 0; x -= 1) {
+                for (int y = 0; y < one.getHeight(); y += 1) {
+                    if (one.getPixel(x, y) == Color.WHITE) {
+                        found = x;
+                        assertEquals("at " + x + "," + y, Color.WHITE, two.getPixel(x, y));
+                        break;
+                    }
+                }
+            }
+            assertTrue("no ink", found >= 0);
+        } finally {
+            atlas.recycle();
+            one.recycle();
+            two.recycle();
+        }
+    }
+}
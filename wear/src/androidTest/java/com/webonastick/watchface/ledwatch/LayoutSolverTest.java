@@ -0,0 +1,81 @@
+package com.webonastick.watchface.ledwatch;
+
+import android.content.Context;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.webonastick.watchface.TypefaceRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Calendar;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that ambient toggles and theme cycles only measure text the
+ * first time each layout is needed.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LayoutSolverTest {
+    private LayoutSolver mLayoutSolver;
+    private LEDWatchFaceRenderer mRenderer;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        TypefaceRegistry typefaceRegistry = new TypefaceRegistry(context.getAssets(), 7);
+        mLayoutSolver = new LayoutSolver(new PaintMeasurer(typefaceRegistry));
+        mRenderer = new LEDWatchFaceRenderer(context, new WeekdayLabels(Locale.US),
+                typefaceRegistry, mLayoutSolver, new PaletteCache(4));
+        mRenderer.setSurface(390, 390, 2f);
+        mRenderer.setRound(true);
+    }
+
+    @After
+    public void tearDown() {
+        mRenderer.destroy();
+    }
+
+    private void render(Utility.LEDWatchThemeMode themeMode, boolean ambient) {
+        mRenderer.render(new WatchFaceState(10, 58, 50, false, false, true,
+                Calendar.SUNDAY, 30, 89, ambient,
+                themeMode, Utility.LEDWatchThemeColor.RED, 0, DSEGFont.getDefaultFont(themeMode)));
+    }
+
+    @Test
+    public void repeatedAmbientTogglesMeasureNothing() {
+        render(Utility.LEDWatchThemeMode.LED, false);
+        render(Utility.LEDWatchThemeMode.LED, true);
+        int layouts = mLayoutSolver.getLayoutsComputed();
+        int metrics = mLayoutSolver.getMetricsComputed();
+        for (int i = 0; i < 5; i += 1) {
+            render(Utility.LEDWatchThemeMode.LED, false);
+            render(Utility.LEDWatchThemeMode.LED, true);
+        }
+        assertEquals(layouts, mLayoutSolver.getLayoutsComputed());
+        assertEquals(metrics, mLayoutSolver.getMetricsComputed());
+    }
+
+    @Test
+    public void repeatedThemeCyclesMeasureNothing() {
+        Utility.LEDWatchThemeMode themeMode = Utility.LEDWatchThemeMode.LED;
+        for (int i = 0; i < Utility.LEDWatchThemeMode.values().length; i += 1) {
+            render(themeMode, false);
+            themeMode = themeMode.nextThemeMode();
+        }
+        assertEquals(Utility.LEDWatchThemeMode.values().length, mLayoutSolver.getLayoutsComputed());
+        int metrics = mLayoutSolver.getMetricsComputed();
+        for (int i = 0; i < 3 * Utility.LEDWatchThemeMode.values().length; i += 1) {
+            render(themeMode, false);
+            themeMode = themeMode.nextThemeMode();
+        }
+        assertEquals(Utility.LEDWatchThemeMode.values().length, mLayoutSolver.getLayoutsComputed());
+        assertEquals(metrics, mLayoutSolver.getMetricsComputed());
+    }
+}
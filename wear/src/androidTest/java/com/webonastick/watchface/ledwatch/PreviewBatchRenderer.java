@@ -0,0 +1,229 @@
+package com.webonastick.watchface.ledwatch;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.webonastick.watchface.TypefaceRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Renders the demo time, 10:58:50 on June 30, 2013, to PNGs for every
+ * theme mode, theme color, interactive, ambient, and low-bit ambient
+ * display, on round and square screens, at the 320 pixels of the
+ * watch face picker previews and the 512 of the store screenshots.
+ * <p>
+ * The renderer draws with Android's Canvas, so this runs on a device
+ * or emulator, across all its cores, from the command line with
+ * "make previews", which pulls the PNGs into wear/build/previews.
+ * Frames whose inputs and APK are unchanged since the last run are
+ * skipped, per manifest.txt next to the PNGs.
+ */
+@RunWith(AndroidJUnit4.class)
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public class PreviewBatchRenderer {
+    private static final String TAG = "PreviewBatchRenderer";
+
+    private static final String DIRECTORY = "previews";
+    private static final String MANIFEST = "manifest.txt";
+
+    private static final int[] SIZES = { 320, 512 };
+
+    /* frames one renderer draws before the rest are split off to other threads */
+    private static final int FRAMES_PER_TASK = 4;
+
+    /* the pie, plus seven- and fourteen-segment fonts for each theme mode */
+    private static final int TYPEFACE_CACHE_SIZE = 7;
+
+    private static class Frame {
+        final Utility.LEDWatchThemeMode themeMode;
+        final Utility.LEDWatchThemeColor themeColor;
+        final boolean round;
+        final int size;
+        final boolean ambient;
+        final boolean lowBitAmbient;
+        final WatchFaceState state;
+        final String name;
+
+        Frame(WatchFaceStateFactory stateFactory, Utility.LEDWatchThemeMode themeMode,
+              Utility.LEDWatchThemeColor themeColor, boolean round, int size,
+              boolean ambient, boolean lowBitAmbient) {
+            this.themeMode = themeMode;
+            this.themeColor = themeColor;
+            this.round = round;
+            this.size = size;
+            this.ambient = ambient;
+            this.lowBitAmbient = lowBitAmbient;
+            this.state = stateFactory.createDemo(ambient, themeMode, themeColor, 0,
+                    DSEGFont.getDefaultFont(themeMode));
+            this.name = themeMode.resourceName + "_" + themeColor.resourceName + "_" +
+                    (round ? "round" : "square") + "_" + size +
+                    (ambient ? (lowBitAmbient ? "_low_bit_ambient" : "_ambient") : "") + ".png";
+        }
+
+        /* everything that goes into the PNG but the code */
+        String getInputs() {
+            return name + " " + size + " " + round + " " + lowBitAmbient + " " + state;
+        }
+    }
+
+    private static List<Frame> createFrames() {
+        WatchFaceStateFactory stateFactory = new WatchFaceStateFactory(TimeZone.getTimeZone("UTC"));
+        List<Frame> frames = new ArrayList<Frame>();
+        for (int size : SIZES) {
+            for (boolean round : new boolean[] { true, false }) {
+                for (Utility.LEDWatchThemeMode themeMode : Utility.LEDWatchThemeMode.values()) {
+                    for (Utility.LEDWatchThemeColor themeColor : Utility.LEDWatchThemeColor.values()) {
+                        frames.add(new Frame(stateFactory, themeMode, themeColor, round, size, false, false));
+                        frames.add(new Frame(stateFactory, themeMode, themeColor, round, size, true, false));
+                        frames.add(new Frame(stateFactory, themeMode, themeColor, round, size, true, true));
+                    }
+                }
+            }
+        }
+        return frames;
+    }
+
+    /* renders a range of frames, splitting it in half until it's small enough for one renderer */
+    private static class RenderTask extends RecursiveTask<Integer> {
+        private final Context mContext;
+        private final TypefaceRegistry mTypefaceRegistry;
+        private final LayoutSolver mLayoutSolver;
+        private final PaletteCache mPaletteCache;
+        private final File mDirectory;
+        private final List<Frame> mFrames;
+        private final int mStart;
+        private final int mEnd;
+
+        RenderTask(Context context, TypefaceRegistry typefaceRegistry, LayoutSolver layoutSolver,
+                   PaletteCache paletteCache, File directory, List<Frame> frames, int start, int end) {
+            mContext = context;
+            mTypefaceRegistry = typefaceRegistry;
+            mLayoutSolver = layoutSolver;
+            mPaletteCache = paletteCache;
+            mDirectory = directory;
+            mFrames = frames;
+            mStart = start;
+            mEnd = end;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (mEnd - mStart > FRAMES_PER_TASK) {
+                int middle = (mStart + mEnd) >>> 1;
+                RenderTask left = new RenderTask(mContext, mTypefaceRegistry, mLayoutSolver,
+                        mPaletteCache, mDirectory, mFrames, mStart, middle);
+                RenderTask right = new RenderTask(mContext, mTypefaceRegistry, mLayoutSolver,
+                        mPaletteCache, mDirectory, mFrames, middle, mEnd);
+                left.fork();
+                return right.compute() + left.join();
+            }
+            LEDWatchFaceRenderer renderer = new LEDWatchFaceRenderer(mContext, new WeekdayLabels(Locale.US),
+                    mTypefaceRegistry, mLayoutSolver, mPaletteCache);
+            renderer.setDemoTimeMode(true);
+            try {
+                for (int i = mStart; i < mEnd; i += 1) {
+                    render(renderer, mFrames.get(i));
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                renderer.destroy();
+            }
+            return mEnd - mStart;
+        }
+
+        private void render(LEDWatchFaceRenderer renderer, Frame frame) throws IOException {
+            /* demo mode scales from 320 pixels to any size */
+            renderer.setSurface(frame.size, frame.size, 1f);
+            renderer.setRound(frame.round);
+            renderer.setDeviceProperties(frame.lowBitAmbient, false);
+            /* from scratch, whatever this renderer drew before */
+            renderer.invalidate();
+            renderer.render(frame.state);
+
+            Bitmap bitmap = Bitmap.createBitmap(frame.size, frame.size, Bitmap.Config.ARGB_8888);
+            try {
+                renderer.drawFrame(new Canvas(bitmap));
+                File file = new File(mDirectory, frame.name);
+                File temp = new File(mDirectory, frame.name + ".tmp");
+                OutputStream out = new FileOutputStream(temp);
+                try {
+                    if (!bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+                        throw new IOException("cannot compress " + frame.name);
+                    }
+                } finally {
+                    out.close();
+                }
+                if (!temp.renameTo(file)) {
+                    throw new IOException("cannot rename " + temp + " to " + file);
+                }
+            } finally {
+                bitmap.recycle();
+            }
+        }
+    }
+
+    @Test
+    public void renderPreviews() throws IOException {
+        Context context = InstrumentationRegistry.getTargetContext();
+        File directory = context.getExternalFilesDir(DIRECTORY);
+        assertTrue("no external storage for " + DIRECTORY, directory != null);
+
+        RenderManifest manifest = new RenderManifest(new File(directory, MANIFEST),
+                RenderManifest.digest(new File(context.getPackageCodePath())));
+        manifest.load();
+        List<Frame> frames = createFrames();
+        List<Frame> changed = new ArrayList<Frame>();
+        for (Frame frame : frames) {
+            String hash = manifest.hash(frame.getInputs());
+            if (!manifest.isCurrent(frame.name, hash, new File(directory, frame.name))) {
+                changed.add(frame);
+            }
+            manifest.put(frame.name, hash);
+        }
+
+        long start = System.nanoTime();
+        int threads = Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        int rendered;
+        try {
+            TypefaceRegistry typefaceRegistry = new TypefaceRegistry(context.getAssets(), TYPEFACE_CACHE_SIZE);
+            rendered = pool.invoke(new RenderTask(context, typefaceRegistry,
+                    /* only built-in colors, so nothing to cache */
+                    new LayoutSolver(new PaintMeasurer(typefaceRegistry)), new PaletteCache(1),
+                    directory, changed, 0, changed.size()));
+        } finally {
+            pool.shutdown();
+        }
+        /* only once every changed frame is written */
+        manifest.save();
+
+        Log.i(TAG, String.format(Locale.US, "%d of %d frames rendered on %d threads in %d ms; to %s",
+                rendered, frames.size(), threads, (System.nanoTime() - start) / 1000000, directory));
+        for (Frame frame : frames) {
+            assertTrue(frame.name, new File(directory, frame.name).isFile());
+        }
+    }
+}
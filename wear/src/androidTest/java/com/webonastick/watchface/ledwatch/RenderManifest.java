@@ -0,0 +1,125 @@
+package com.webonastick.watchface.ledwatch;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Remembers a content hash of what went into each rendered file, so a
+ * batch render can skip files whose inputs haven't changed since the
+ * last run.
+ * <p>
+ * A hash covers the code that renders, e.g. the APK, and a string
+ * describing everything else about the file.  The manifest is one
+ * "name hash" line per file, sorted by name, so the same inputs
+ * always give the same manifest.
+ */
+public class RenderManifest {
+    private final File file;
+    private final byte[] codeDigest;
+
+    private final Map<String, String> previous = new HashMap<String, String>();
+    private final Map<String, String> current = new TreeMap<String, String>();
+
+    public RenderManifest(File file, byte[] codeDigest) {
+        this.file = file;
+        this.codeDigest = codeDigest.clone();
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            /* every Java platform has SHA-256 */
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static byte[] digest(File code) throws IOException {
+        MessageDigest digest = createDigest();
+        InputStream in = new FileInputStream(code);
+        try {
+            byte[] buffer = new byte[65536];
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, count);
+            }
+        } finally {
+            in.close();
+        }
+        return digest.digest();
+    }
+
+    /* hex SHA-256 of the code digest and the inputs */
+    public String hash(String inputs) {
+        MessageDigest digest = createDigest();
+        digest.update(codeDigest);
+        try {
+            digest.update(inputs.getBytes("UTF-8"));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b & 0xff));
+        }
+        return hex.toString();
+    }
+
+    /* the manifest from the last run, if there is one */
+    public void load() throws IOException {
+        previous.clear();
+        if (!file.isFile()) {
+            return;
+        }
+        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space > 0) {
+                    previous.put(line.substring(0, space), line.substring(space + 1));
+                }
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /* whether output was rendered from the same inputs last time */
+    public boolean isCurrent(String name, String hash, File output) {
+        return hash.equals(previous.get(name)) && output.isFile();
+    }
+
+    /* a file this run rendered, or found current */
+    public void put(String name, String hash) {
+        current.put(name, hash);
+    }
+
+    /* only the files put this run; written whole, then renamed over the old one */
+    public void save() throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        Writer out = new OutputStreamWriter(new FileOutputStream(temp), "UTF-8");
+        try {
+            for (Map.Entry<String, String> entry : current.entrySet()) {
+                out.write(entry.getKey() + " " + entry.getValue() + "\n");
+            }
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("cannot rename " + temp + " to " + file);
+        }
+    }
+}
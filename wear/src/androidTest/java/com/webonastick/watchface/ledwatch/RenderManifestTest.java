@@ -0,0 +1,99 @@
+package com.webonastick.watchface.ledwatch;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class RenderManifestTest {
+    private static final byte[] CODE = { 1, 2, 3 };
+
+    private static File createTempDir() throws IOException {
+        File dir = File.createTempFile("render-manifest", "");
+        assertTrue(dir.delete());
+        assertTrue(dir.mkdir());
+        return dir;
+    }
+
+    private static File touch(File dir, String name) throws IOException {
+        File file = new File(dir, name);
+        new FileOutputStream(file).close();
+        return file;
+    }
+
+    @Test
+    public void hashesCoverCodeAndInputs() {
+        RenderManifest manifest = new RenderManifest(new File("manifest"), CODE);
+        assertEquals(manifest.hash("led blue"), manifest.hash("led blue"));
+        assertFalse(manifest.hash("led blue").equals(manifest.hash("led red")));
+        assertFalse(manifest.hash("led blue").equals(
+                new RenderManifest(new File("manifest"), new byte[] { 1, 2, 4 }).hash("led blue")));
+        assertEquals(64, manifest.hash("").length());
+    }
+
+    @Test
+    public void unchangedInputsAreCurrentNextRun() throws IOException {
+        File dir = createTempDir();
+        File file = new File(dir, "manifest.txt");
+        File blue = touch(dir, "blue.png");
+        File red = touch(dir, "red.png");
+
+        RenderManifest first = new RenderManifest(file, CODE);
+        first.load();
+        String blueHash = first.hash("led blue");
+        String redHash = first.hash("led red");
+        assertFalse(first.isCurrent("blue.png", blueHash, blue));
+        first.put("red.png", redHash);
+        first.put("blue.png", blueHash);
+        first.save();
+
+        RenderManifest second = new RenderManifest(file, CODE);
+        second.load();
+        assertTrue(second.isCurrent("blue.png", blueHash, blue));
+        assertFalse(second.isCurrent("blue.png", second.hash("led blue, bold"), blue));
+        assertTrue(red.delete());
+        assertFalse(second.isCurrent("red.png", redHash, red));
+
+        assertTrue(blue.delete());
+        assertTrue(file.delete());
+        assertTrue(dir.delete());
+    }
+
+    @Test
+    public void savedManifestIsSortedByName() throws IOException {
+        File dir = createTempDir();
+        File file = new File(dir, "manifest.txt");
+        RenderManifest manifest = new RenderManifest(file, CODE);
+        manifest.put("b.png", "2");
+        manifest.put("a.png", "1");
+        manifest.save();
+        byte[] bytes = new byte[(int) file.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            in.readFully(bytes);
+        } finally {
+            in.close();
+        }
+        assertEquals("a.png 1\nb.png 2\n", new String(bytes, "UTF-8"));
+
+        RenderManifest reloaded = new RenderManifest(file, CODE);
+        reloaded.load();
+        File a = touch(dir, "a.png");
+        assertTrue(reloaded.isCurrent("a.png", "1", a));
+
+        assertTrue(a.delete());
+        assertTrue(file.delete());
+        assertTrue(dir.delete());
+    }
+}
@@ -0,0 +1,172 @@
+package com.webonastick.watchface.ledwatch;
+
+import android.content.Context;
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.webonastick.watchface.TypefaceRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Calendar;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures how much memory a renderer takes in each theme, interactive
+ * and ambient, on a 454x454 screen: how many bytes all of its bitmaps,
+ * glyph atlases included, hold, and by how much the Java and native
+ * heaps grow while a fresh renderer draws its first frame.  Results go
+ * to logcat under the RendererMemoryTest tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RendererMemoryTest {
+    private static final String TAG = "RendererMemoryTest";
+
+    private static final int SIZE = 454;
+
+    /* two full-screen ARGB_8888 backgrounds and an ARGB_8888 frame */
+    private static final int OLD_BYTE_COUNT = 3 * SIZE * SIZE * 4;
+
+    private Context mContext;
+    private TypefaceRegistry mTypefaceRegistry;
+    private LEDWatchFaceRenderer mRenderer;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getTargetContext();
+        mTypefaceRegistry = new TypefaceRegistry(mContext.getAssets(), 7);
+        mRenderer = createRenderer();
+    }
+
+    @After
+    public void tearDown() {
+        mRenderer.destroy();
+    }
+
+    private LEDWatchFaceRenderer createRenderer() {
+        LEDWatchFaceRenderer renderer = new LEDWatchFaceRenderer(mContext, new WeekdayLabels(Locale.US),
+                mTypefaceRegistry, new LayoutSolver(new PaintMeasurer(mTypefaceRegistry)), new PaletteCache(4));
+        renderer.setSurface(SIZE, SIZE, 2f);
+        renderer.setRound(true);
+        return renderer;
+    }
+
+    private static WatchFaceState createState(Utility.LEDWatchThemeMode themeMode, boolean ambient) {
+        return new WatchFaceState(10, 58, 50, false, false, true,
+                Calendar.SUNDAY, 30, 89, ambient,
+                themeMode, Utility.LEDWatchThemeColor.RED, 0, DSEGFont.getDefaultFont(themeMode));
+    }
+
+    private int measure(Utility.LEDWatchThemeMode themeMode, boolean ambient) {
+        mRenderer.render(createState(themeMode, ambient));
+        int byteCount = mRenderer.getBitmapByteCount();
+        Log.i(TAG, String.format("%s%s: %d bytes in bitmaps (was %d)",
+                themeMode, ambient ? " ambient" : "", byteCount, OLD_BYTE_COUNT));
+        return byteCount;
+    }
+
+    /* Java and native heap in use, after collecting whatever can be */
+    private static long getHeapSize() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i += 1) {
+            runtime.gc();
+            runtime.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory() + Debug.getNativeHeapAllocatedSize();
+    }
+
+    private long measureHeap(Utility.LEDWatchThemeMode themeMode, boolean ambient) {
+        /* typefaces are shared between renderers, so load them before measuring */
+        LEDWatchFaceRenderer renderer = createRenderer();
+        renderer.render(createState(themeMode, ambient));
+        renderer.destroy();
+
+        long before = getHeapSize();
+        renderer = createRenderer();
+        try {
+            renderer.render(createState(themeMode, ambient));
+            long growth = getHeapSize() - before;
+            Log.i(TAG, String.format("%s%s: heap grew by %d bytes (was at least %d)",
+                    themeMode, ambient ? " ambient" : "", growth, OLD_BYTE_COUNT));
+            return growth;
+        } finally {
+            renderer.destroy();
+        }
+    }
+
+    @Test
+    public void ambientUsesAtLeastHalfAsLittleMemory() {
+        for (Utility.LEDWatchThemeMode themeMode : Utility.LEDWatchThemeMode.values()) {
+            int interactive = measure(themeMode, false);
+            int ambient = measure(themeMode, true);
+            assertTrue(themeMode + " ambient", ambient * 2 <= interactive);
+            assertTrue(themeMode + " ambient vs. before", ambient * 4 <= OLD_BYTE_COUNT);
+        }
+    }
+
+    @Test
+    public void ambientHeapGrowsAtLeastHalfAsLittle() {
+        for (Utility.LEDWatchThemeMode themeMode : Utility.LEDWatchThemeMode.values()) {
+            long interactive = measureHeap(themeMode, false);
+            long ambient = measureHeap(themeMode, true);
+            assertTrue(themeMode + " ambient heap", ambient * 2 <= interactive);
+            assertTrue(themeMode + " ambient heap vs. before", ambient * 2 <= OLD_BYTE_COUNT);
+        }
+    }
+
+    @Test
+    public void lowBitAmbientUsesMasks() {
+        mRenderer.setDeviceProperties(true, false);
+        for (Utility.LEDWatchThemeMode themeMode : Utility.LEDWatchThemeMode.values()) {
+            int ambient = measure(themeMode, true);
+            assertTrue(themeMode + " low-bit ambient", ambient <= 3 * SIZE * SIZE);
+        }
+    }
+
+    private void renderCustomColor(int customColor) {
+        mRenderer.render(new WatchFaceState(10, 58, 50, false, false, true,
+                Calendar.SUNDAY, 30, 89, false,
+                Utility.LEDWatchThemeMode.LED, Utility.LEDWatchThemeColor.RED, customColor,
+                DSEGFont.getDefaultFont(Utility.LEDWatchThemeMode.LED)));
+    }
+
+    @Test
+    public void switchingBackToACustomColorReusesItsBackground() {
+        int[] colors = { SwatchGrid.getColor(0), SwatchGrid.getColor(8), SwatchGrid.getColor(16) };
+        for (int color : colors) {
+            renderCustomColor(color);
+        }
+        for (int color : colors) {
+            renderCustomColor(color);
+        }
+        assertEquals(colors.length, mRenderer.getBackgroundsDrawn());
+    }
+
+    @Test
+    public void faintSecondsPieFollowsTheAmbientPolicy() {
+        WatchFaceState state = createState(Utility.LEDWatchThemeMode.LED, true);
+        mRenderer.render(state);
+        assertEquals(1, mRenderer.getBackgroundsDrawn());
+
+        /* once a minute, the pie never lights up, so its faint segments go */
+        mRenderer.setAmbientSecondsStep(60);
+        mRenderer.render(state);
+        assertEquals(2, mRenderer.getBackgroundsDrawn());
+
+        /* any other step still shows the pie */
+        mRenderer.setAmbientSecondsStep(10);
+        mRenderer.render(state);
+        mRenderer.setAmbientSecondsStep(30);
+        mRenderer.render(state);
+        assertEquals(3, mRenderer.getBackgroundsDrawn());
+    }
+}
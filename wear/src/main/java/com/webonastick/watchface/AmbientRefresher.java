@@ -7,16 +7,64 @@ import android.content.Context;
 import android.content.ContextWrapper;
 import android.content.Intent;
 import android.content.IntentFilter;
-import android.os.Handler;
-import android.util.Log;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
 
-import static android.app.AlarmManager.RTC_WAKEUP;
+import java.io.PrintWriter;
+import java.util.Locale;
 
+/**
+ * Redraws the watch face in ambient mode more often than the system's
+ * once-a-minute time tick, e.g. to advance a seconds indicator.
+ * <p>
+ * Every refresh is an alarm, and unless it's a non-wakeup alarm, a
+ * full CPU wakeup, so how often and how precisely to refresh is a
+ * {@link Policy}, which the user picks; {@link #load} reads it from
+ * the preferences a configuration activity saves it to.  Each
+ * refresher counts the wakeups it used so the policies can be
+ * compared, e.g. from {@link #dump}.
+ */
 public class AmbientRefresher {
-    private int seconds = 10;
     private static final String AMBIENT_UPDATE_ACTION = "com.webonastick.watchface.action.AMBIENT_UPDATE";
 
-    private static final String TAG = "AmbientRefresher";
+    /* saved as the enum constants' names, and a boolean */
+    public static final String KEY_POLICY = "ambient_refresh_policy";
+    public static final String KEY_GRANULARITY = "ambient_refresh_granularity";
+    public static final String KEY_WAKEUP = "ambient_refresh_wakeup";
+
+    public static final Policy DEFAULT_POLICY = Policy.EXACT;
+    public static final Granularity DEFAULT_GRANULARITY = Granularity.TEN_SECONDS;
+    public static final boolean DEFAULT_WAKEUP = true;
+
+    private static final long MILLIS_PER_HOUR = 60L * 60L * 1000L;
+
+    public enum Policy {
+        /* an alarm exactly on each interval */
+        EXACT,
+        /* an alarm somewhere in the first quarter of each interval, so the system can batch it */
+        WINDOWED,
+        /* no alarms; the system's once-a-minute time tick redraws */
+        TIME_TICK,
+        /* no alarms, and nothing in ambient mode depends on seconds */
+        DISABLED
+    }
+
+    public enum Granularity {
+        TEN_SECONDS(10),
+        TWENTY_SECONDS(20),
+        THIRTY_SECONDS(30),
+        SIXTY_SECONDS(60);
+
+        public final int seconds;
+
+        Granularity(int seconds) {
+            this.seconds = seconds;
+        }
+    }
+
+    private Policy policy = DEFAULT_POLICY;
+    private Granularity granularity = DEFAULT_GRANULARITY;
+    private boolean wakeup = DEFAULT_WAKEUP;
 
     private Intent intent = null;
     private PendingIntent pendingIntent = null;
@@ -25,15 +73,104 @@ public class AmbientRefresher {
     private IntentFilter intentFilter = null;
     private boolean receiverRegistered = false;
 
-    private Handler handler = null;
     private Runnable runnable = null;
     private ContextWrapper contextWrapper = null;
 
+    /* for wakeups per hour, over every start() to stop(); volatile for dump() */
+    private volatile boolean started = false;
+    private volatile long startedRealtimeMillis;
+    private volatile long runningMillis = 0;
+    private volatile int refreshCount = 0;
+    private volatile int wakeupCount = 0;
+
     public AmbientRefresher(ContextWrapper contextWrapper, Runnable runnable) {
         this.contextWrapper = contextWrapper;
         this.runnable = runnable;
     }
 
+    public static boolean isPreferenceKey(String key) {
+        return KEY_POLICY.equals(key) || KEY_GRANULARITY.equals(key) || KEY_WAKEUP.equals(key);
+    }
+
+    public static Policy readPolicy(SharedPreferences sharedPreferences) {
+        String name = sharedPreferences.getString(KEY_POLICY, null);
+        for (Policy policy : Policy.values()) {
+            if (policy.name().equals(name)) {
+                return policy;
+            }
+        }
+        return DEFAULT_POLICY;
+    }
+
+    public static Granularity readGranularity(SharedPreferences sharedPreferences) {
+        String name = sharedPreferences.getString(KEY_GRANULARITY, null);
+        for (Granularity granularity : Granularity.values()) {
+            if (granularity.name().equals(name)) {
+                return granularity;
+            }
+        }
+        return DEFAULT_GRANULARITY;
+    }
+
+    public static boolean readWakeup(SharedPreferences sharedPreferences) {
+        return sharedPreferences.getBoolean(KEY_WAKEUP, DEFAULT_WAKEUP);
+    }
+
+    /**
+     * Takes the saved policy, granularity, and wakeup, restarting
+     * the alarms with them if started.  Returns whether
+     * {@link #getRefreshSeconds} changed.
+     */
+    public boolean load(SharedPreferences sharedPreferences) {
+        int refreshSeconds = getRefreshSeconds();
+        policy = readPolicy(sharedPreferences);
+        granularity = readGranularity(sharedPreferences);
+        wakeup = readWakeup(sharedPreferences);
+        if (started) {
+            cancelAlarms();
+            if (usesAlarms()) {
+                handle();
+            }
+        }
+        return getRefreshSeconds() != refreshSeconds;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    /* RTC_WAKEUP if true, RTC (delivered when something else wakes the CPU) if false */
+    public boolean getWakeup() {
+        return wakeup;
+    }
+
+    /**
+     * Seconds between ambient redraws a watch face can count on under
+     * the current policy, e.g. to decide what a seconds indicator
+     * shows.  Sixty when only the time tick redraws, zero when
+     * disabled.
+     */
+    public int getRefreshSeconds() {
+        switch (policy) {
+            case EXACT:
+            case WINDOWED:
+                return granularity.seconds;
+            case TIME_TICK:
+                return 60;
+            default:
+                return 0;
+        }
+    }
+
+    private boolean usesAlarms() {
+        return (policy == Policy.EXACT || policy == Policy.WINDOWED) &&
+                granularity != Granularity.SIXTY_SECONDS;
+    }
+
     private void handle() {
         if (alarmManager == null) {
             alarmManager = (AlarmManager) contextWrapper.getSystemService(Context.ALARM_SERVICE);
@@ -44,6 +181,10 @@ public class AmbientRefresher {
             broadcastReceiver = new BroadcastReceiver() {
                 @Override
                 public void onReceive(Context context, Intent intent) {
+                    refreshCount += 1;
+                    if (wakeup) {
+                        wakeupCount += 1;
+                    }
                     if (runnable != null) {
                         runnable.run();
                     }
@@ -56,17 +197,36 @@ public class AmbientRefresher {
             contextWrapper.registerReceiver(broadcastReceiver, intentFilter);
             receiverRegistered = true;
         }
+        long intervalMs = granularity.seconds * 1000L;
         long timeMs = System.currentTimeMillis();
-        long delayMs = (seconds * 1000) - timeMs % (seconds * 1000);
-        long triggerTimeMs = timeMs + delayMs;
-        alarmManager.setExact(RTC_WAKEUP, triggerTimeMs, pendingIntent);
+        long triggerTimeMs = timeMs + intervalMs - timeMs % intervalMs;
+        int type = wakeup ? AlarmManager.RTC_WAKEUP : AlarmManager.RTC;
+        if (policy == Policy.WINDOWED) {
+            alarmManager.setWindow(type, triggerTimeMs, intervalMs / 4, pendingIntent);
+        } else {
+            alarmManager.setExact(type, triggerTimeMs, pendingIntent);
+        }
     }
 
     public void start() {
-        handle();
+        if (!started) {
+            started = true;
+            startedRealtimeMillis = SystemClock.elapsedRealtime();
+        }
+        if (usesAlarms()) {
+            handle();
+        }
     }
 
     public void stop() {
+        cancelAlarms();
+        if (started) {
+            started = false;
+            runningMillis += SystemClock.elapsedRealtime() - startedRealtimeMillis;
+        }
+    }
+
+    private void cancelAlarms() {
         if (alarmManager != null) {
             alarmManager.cancel(pendingIntent);
         }
@@ -75,4 +235,46 @@ public class AmbientRefresher {
             receiverRegistered = false;
         }
     }
+
+    private long getRunningMillis() {
+        if (started) {
+            return runningMillis + SystemClock.elapsedRealtime() - startedRealtimeMillis;
+        }
+        return runningMillis;
+    }
+
+    /* alarm wakeups per hour spent between start() and stop() */
+    public float getWakeupsPerHour() {
+        long millis = getRunningMillis();
+        if (millis <= 0) {
+            return 0f;
+        }
+        return wakeupCount * (float) MILLIS_PER_HOUR / millis;
+    }
+
+    /* redraws per hour, including ones from non-wakeup alarms */
+    public float getRefreshesPerHour() {
+        long millis = getRunningMillis();
+        if (millis <= 0) {
+            return 0f;
+        }
+        return refreshCount * (float) MILLIS_PER_HOUR / millis;
+    }
+
+    /* the policy and how it did, e.g. for Service.dump */
+    public void dump(PrintWriter writer) {
+        writer.println(String.format(Locale.US,
+                "Ambient refresh: %s every %ds%s, %.1f wakeups and %.1f refreshes per hour",
+                policy, granularity.seconds, wakeup ? "" : " (non-wakeup)",
+                getWakeupsPerHour(), getRefreshesPerHour()));
+    }
+
+    public void resetStatistics() {
+        runningMillis = 0;
+        refreshCount = 0;
+        wakeupCount = 0;
+        if (started) {
+            startedRealtimeMillis = SystemClock.elapsedRealtime();
+        }
+    }
 }
@@ -0,0 +1,91 @@
+package com.webonastick.watchface;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+
+/**
+ * Caches the battery level from ACTION_BATTERY_CHANGED broadcasts so
+ * that drawing a frame never has to query the sticky broadcast.
+ * <p>
+ * The runnable is only called when the percentage actually changes.
+ */
+public class BatteryMonitor {
+    private static final String TAG = "BatteryMonitor";
+
+    private int level = -1;
+    private int scale = -1;
+    private int percentage = -1;
+
+    private BroadcastReceiver broadcastReceiver = null;
+    private IntentFilter intentFilter = null;
+    private boolean receiverRegistered = false;
+
+    private Runnable runnable = null;
+    private ContextWrapper contextWrapper = null;
+
+    public BatteryMonitor(ContextWrapper contextWrapper, Runnable runnable) {
+        this.contextWrapper = contextWrapper;
+        this.runnable = runnable;
+    }
+
+    public void start() {
+        if (receiverRegistered) {
+            return;
+        }
+        if (broadcastReceiver == null) {
+            broadcastReceiver = new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    update(intent);
+                }
+            };
+            intentFilter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+        }
+        /* sticky broadcast, so we get the current level right away */
+        Intent batteryStatus = contextWrapper.registerReceiver(broadcastReceiver, intentFilter);
+        receiverRegistered = true;
+        if (batteryStatus != null) {
+            update(batteryStatus);
+        }
+    }
+
+    public void stop() {
+        if (receiverRegistered) {
+            contextWrapper.unregisterReceiver(broadcastReceiver);
+            receiverRegistered = false;
+        }
+    }
+
+    private void update(Intent intent) {
+        level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        int newPercentage = -1;
+        if (level >= 0 && scale > 0) {
+            newPercentage = Math.round(level * 100f / scale);
+        }
+        if (newPercentage == percentage) {
+            return;
+        }
+        percentage = newPercentage;
+        if (runnable != null) {
+            runnable.run();
+        }
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    /* 0 to 100, or -1 if unknown */
+    public int getPercentage() {
+        return percentage;
+    }
+}
@@ -0,0 +1,102 @@
+package com.webonastick.watchface;
+
+import android.graphics.Rect;
+
+/**
+ * Remembers the last drawn value and the bounding rectangle of each
+ * field of a watch face, so that a frame only has to redraw the
+ * fields whose values changed.
+ * <p>
+ * Fields are numbered from zero.  Values are whatever int uniquely
+ * identifies what the field shows.
+ */
+public class DamageTracker {
+    private final int[] values;
+    private final boolean[] dirty;
+    private final Rect[] bounds;
+    private final Rect dirtyBounds = new Rect();
+
+    public DamageTracker(int numberOfFields) {
+        values = new int[numberOfFields];
+        dirty = new boolean[numberOfFields];
+        bounds = new Rect[numberOfFields];
+        for (int i = 0; i < numberOfFields; i += 1) {
+            bounds[i] = new Rect();
+        }
+        invalidateAll();
+    }
+
+    public void setBounds(int field, float left, float top, float right, float bottom) {
+        bounds[field].set(
+                (int) Math.floor(left), (int) Math.floor(top),
+                (int) Math.ceil(right), (int) Math.ceil(bottom)
+        );
+        dirty[field] = true;
+    }
+
+    public void unionBounds(int field, float left, float top, float right, float bottom) {
+        bounds[field].union(
+                (int) Math.floor(left), (int) Math.floor(top),
+                (int) Math.ceil(right), (int) Math.ceil(bottom)
+        );
+        dirty[field] = true;
+    }
+
+    public Rect getBounds(int field) {
+        return bounds[field];
+    }
+
+    /**
+     * Records the value a field is about to show, marking it dirty
+     * if it differs from the last one drawn.
+     */
+    public void update(int field, int value) {
+        if (values[field] != value) {
+            values[field] = value;
+            dirty[field] = true;
+        }
+    }
+
+    public boolean isDirty(int field) {
+        return dirty[field];
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < dirty.length; i += 1) {
+            values[i] = Integer.MIN_VALUE;
+            dirty[i] = true;
+        }
+    }
+
+    public boolean hasDamage() {
+        for (boolean d : dirty) {
+            if (d) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* union of the bounds of all dirty fields; empty if none */
+    public Rect getDirtyBounds() {
+        dirtyBounds.setEmpty();
+        for (int i = 0; i < dirty.length; i += 1) {
+            if (dirty[i]) {
+                dirtyBounds.union(bounds[i]);
+            }
+        }
+        return dirtyBounds;
+    }
+
+    /* whether a field must be redrawn when redrawing the given area */
+    public boolean intersects(int field, Rect area) {
+        return Rect.intersects(bounds[field], area);
+    }
+
+    /* call once the dirty fields have been drawn */
+    public void clearDirty() {
+        for (int i = 0; i < dirty.length; i += 1) {
+            dirty[i] = false;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.webonastick.watchface;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Turns a watch face's tap events into multi-tap and long-press
+ * gestures on regions of the screen.
+ * <p>
+ * Each region declares the tap counts it handles.  A multi-tap is
+ * dispatched as soon as its count can't go any higher, and otherwise
+ * once no further tap follows within the multi-tap threshold.  A
+ * region that handles long presses gets one when a touch is held past
+ * the long-press threshold; the tap that ends it is swallowed.
+ * <p>
+ * Everything is called on the thread the handler was created on.
+ * Call {@link #close} when done with it.
+ */
+public class GestureHandler<RegionType> {
+
+    public interface Listener<RegionType> {
+        void onMultiTapCommand(RegionType region, int numberOfTaps);
+
+        void onLongPressCommand(RegionType region);
+    }
+
+    // Windows default double-tap threshold.
+    public static final int MULTI_TAP_THRESHOLD_MS = 500;
+
+    // Android's default long-press timeout.
+    public static final int LONG_PRESS_THRESHOLD_MS = 500;
+
+    private boolean mClosed = false;
+    private int mNumberOfTaps = -1;
+    private Handler mHandler;
+    private Runnable mMultiTapRunnable;
+    private Runnable mLongPressRunnable;
+    private int mMultiTapThresholdMs = MULTI_TAP_THRESHOLD_MS;
+    private int mLongPressThresholdMs = LONG_PRESS_THRESHOLD_MS;
+    private Listener<RegionType> mListener;
+
+    private final Map<RegionType, Integer> mMaxTapCounts = new HashMap<RegionType, Integer>();
+    private final Map<RegionType, Boolean> mLongPressRegions = new HashMap<RegionType, Boolean>();
+
+    private @Nullable RegionType mRegion = null;
+    private long mLastTapUptimeMillis = -1;
+
+    /* region of a touch that's down, and whether it became a long press */
+    private @Nullable RegionType mTouchRegion = null;
+    private long mTouchUptimeMillis = -1;
+    private boolean mLongPressed = false;
+
+    /* tap (or touch, for long presses) to dispatch, for tuning the thresholds */
+    private int mDispatchCount = 0;
+    private long mTotalLatencyMillis = 0;
+    private long mMaxLatencyMillis = 0;
+
+    public GestureHandler(Listener<RegionType> listener) {
+        mListener = listener;
+        mMultiTapRunnable = new Runnable() {
+            @Override
+            public void run() {
+                dispatchMultiTap();
+            }
+        };
+        mLongPressRunnable = new Runnable() {
+            @Override
+            public void run() {
+                @Nullable RegionType region = mTouchRegion;
+                mLongPressed = true;
+                cancelMultiTap();
+                recordLatency(mTouchUptimeMillis);
+                mListener.onLongPressCommand(region);
+            }
+        };
+        mHandler = new Handler();
+    }
+
+    /* e.g. 2 and 3 for double and triple taps */
+    public void setTapCounts(RegionType region, int... numbersOfTaps) {
+        int max = 1;
+        for (int n : numbersOfTaps) {
+            max = Math.max(max, n);
+        }
+        mMaxTapCounts.put(region, max);
+    }
+
+    public void setLongPress(RegionType region, boolean longPress) {
+        mLongPressRegions.put(region, longPress);
+    }
+
+    public void setMultiTapThresholdMs(int thresholdMs) {
+        mMultiTapThresholdMs = thresholdMs;
+    }
+
+    public void setLongPressThresholdMs(int thresholdMs) {
+        mLongPressThresholdMs = thresholdMs;
+    }
+
+    private int getMaxTapCount(RegionType region) {
+        Integer max = mMaxTapCounts.get(region);
+        return max == null ? 1 : max;
+    }
+
+    private boolean handlesLongPress(RegionType region) {
+        Boolean longPress = mLongPressRegions.get(region);
+        return longPress != null && longPress;
+    }
+
+    /* TAP_TYPE_TOUCH */
+    public void onTouchEvent(RegionType region, long eventTime) {
+        if (mClosed) {
+            return;
+        }
+        mHandler.removeCallbacks(mLongPressRunnable);
+        mTouchRegion = region;
+        mTouchUptimeMillis = eventTime;
+        mLongPressed = false;
+        if (handlesLongPress(region)) {
+            long delayMs = eventTime + mLongPressThresholdMs - SystemClock.uptimeMillis();
+            mHandler.postDelayed(mLongPressRunnable, Math.max(0, delayMs));
+        }
+    }
+
+    /* TAP_TYPE_TOUCH_CANCEL */
+    public void onTouchCancelEvent() {
+        mHandler.removeCallbacks(mLongPressRunnable);
+        mTouchRegion = null;
+        mLongPressed = false;
+    }
+
+    /* TAP_TYPE_TAP */
+    public void onTapEvent(RegionType region, long eventTime) {
+        if (mClosed) {
+            return;
+        }
+        mHandler.removeCallbacks(mLongPressRunnable);
+        boolean longPressed = mLongPressed;
+        mTouchRegion = null;
+        mLongPressed = false;
+        if (longPressed) {
+            return;
+        }
+        if (region == mRegion) {
+            mNumberOfTaps += 1;
+        } else {
+            /* a different region starts over */
+            mRegion = region;
+            mNumberOfTaps = 1;
+        }
+        mLastTapUptimeMillis = eventTime;
+        mHandler.removeCallbacks(mMultiTapRunnable);
+        if (mNumberOfTaps >= getMaxTapCount(region)) {
+            dispatchMultiTap();
+        } else {
+            mHandler.postDelayed(mMultiTapRunnable, mMultiTapThresholdMs);
+        }
+    }
+
+    private void dispatchMultiTap() {
+        @Nullable RegionType region = mRegion;
+        int numberOfTaps = mNumberOfTaps;
+        mRegion = null;
+        mNumberOfTaps = -1;
+        recordLatency(mLastTapUptimeMillis);
+        mListener.onMultiTapCommand(region, numberOfTaps);
+    }
+
+    private void recordLatency(long eventTime) {
+        long latency = SystemClock.uptimeMillis() - eventTime;
+        mDispatchCount += 1;
+        mTotalLatencyMillis += latency;
+        mMaxLatencyMillis = Math.max(mMaxLatencyMillis, latency);
+    }
+
+    public int getDispatchCount() {
+        return mDispatchCount;
+    }
+
+    public long getAverageLatencyMillis() {
+        return mDispatchCount == 0 ? 0 : mTotalLatencyMillis / mDispatchCount;
+    }
+
+    public long getMaxLatencyMillis() {
+        return mMaxLatencyMillis;
+    }
+
+    public void cancel() {
+        mHandler.removeCallbacks(mMultiTapRunnable);
+        mHandler.removeCallbacks(mLongPressRunnable);
+        mRegion = null;
+        mNumberOfTaps = -1;
+        mTouchRegion = null;
+        mLongPressed = false;
+    }
+
+    private void cancelMultiTap() {
+        mHandler.removeCallbacks(mMultiTapRunnable);
+        mRegion = null;
+        mNumberOfTaps = -1;
+    }
+
+    public void close() {
+        cancel();
+        mClosed = true;
+    }
+}
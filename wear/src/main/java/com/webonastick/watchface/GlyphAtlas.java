@@ -0,0 +1,384 @@
+package com.webonastick.watchface;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+import com.webonastick.util.BoxBlur;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The glyphs one text paint can draw, rasterized once into a bitmap
+ * so that drawing a frame is a series of bitmap blits instead of text
+ * shaping, glyph rasterization, and shadow blurs.
+ * <p>
+ * The shadow or glow is blurred on the CPU from each glyph's mask on
+ * its own, into a cell of its own padded to fit all of it, so it costs
+ * nothing per frame.  Like drawText, the shadow of a whole string is
+ * drawn before any of its glyphs.  Spaces are drawn as advances only.
+ * Positions are rounded to whole pixels so that blits are never
+ * resampled, which keeps non-antialiased text pixel-exact.
+ * <p>
+ * An atlas built as a mask only keeps alpha, a quarter of the memory,
+ * and is only meant to be drawn onto an alpha mask, as in ambient mode.
+ */
+public class GlyphAtlas {
+    /* keep the bitmap from getting absurdly wide */
+    private static final int MAX_WIDTH = 1024;
+
+    private static final char SPACE = ' ';
+
+    /**
+     * Everything that affects how the glyphs are rasterized.  The
+     * shadow has to be passed in because Paint only exposes it on
+     * newer API levels.
+     */
+    public static class Key {
+        private final Typeface typeface;
+        private final float textSize;
+        private final float textSkewX;
+        private final int color;
+        private final boolean antiAlias;
+        private final float shadowRadius;
+        private final float shadowDx;
+        private final float shadowDy;
+        private final int shadowColor;
+        private final String glyphs;
+        private final boolean mask;
+
+        public Key(Paint paint, float shadowRadius, float shadowDx, float shadowDy, int shadowColor,
+                   String glyphs, boolean mask) {
+            this.typeface = paint.getTypeface();
+            this.textSize = paint.getTextSize();
+            this.textSkewX = paint.getTextSkewX();
+            this.color = paint.getColor();
+            this.antiAlias = paint.isAntiAlias();
+            this.shadowRadius = shadowRadius;
+            this.shadowDx = shadowRadius > 0 ? shadowDx : 0;
+            this.shadowDy = shadowRadius > 0 ? shadowDy : 0;
+            this.shadowColor = shadowRadius > 0 ? shadowColor : 0;
+            this.glyphs = glyphs;
+            this.mask = mask;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return typeface == k.typeface &&
+                    textSize == k.textSize &&
+                    textSkewX == k.textSkewX &&
+                    color == k.color &&
+                    antiAlias == k.antiAlias &&
+                    shadowRadius == k.shadowRadius &&
+                    shadowDx == k.shadowDx &&
+                    shadowDy == k.shadowDy &&
+                    shadowColor == k.shadowColor &&
+                    glyphs.equals(k.glyphs) &&
+                    mask == k.mask;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = System.identityHashCode(typeface);
+            h = 31 * h + Float.floatToIntBits(textSize);
+            h = 31 * h + Float.floatToIntBits(textSkewX);
+            h = 31 * h + color;
+            h = 31 * h + (antiAlias ? 1 : 0);
+            h = 31 * h + Float.floatToIntBits(shadowRadius);
+            h = 31 * h + Float.floatToIntBits(shadowDx);
+            h = 31 * h + Float.floatToIntBits(shadowDy);
+            h = 31 * h + shadowColor;
+            h = 31 * h + glyphs.hashCode();
+            h = 31 * h + (mask ? 1 : 0);
+            return h;
+        }
+    }
+
+    /**
+     * Atlases built for the current set of paint configurations.
+     * Paints configured identically share one atlas.  Call
+     * {@link #begin()}, then {@link #get} for every paint, then
+     * {@link #end()} to recycle the atlases nothing asked for.
+     */
+    public static class Cache {
+        private final Map<Key, GlyphAtlas> atlases = new HashMap<Key, GlyphAtlas>();
+        private final Map<Key, Boolean> used = new HashMap<Key, Boolean>();
+
+        public void begin() {
+            used.clear();
+        }
+
+        public GlyphAtlas get(Paint paint, float shadowRadius, float shadowDx, float shadowDy, int shadowColor,
+                              String glyphs, boolean mask) {
+            Key key = new Key(paint, shadowRadius, shadowDx, shadowDy, shadowColor, glyphs, mask);
+            used.put(key, Boolean.TRUE);
+            GlyphAtlas atlas = atlases.get(key);
+            if (atlas == null) {
+                atlas = new GlyphAtlas(paint, shadowRadius, shadowDx, shadowDy, shadowColor, glyphs, mask);
+                atlases.put(key, atlas);
+            }
+            return atlas;
+        }
+
+        public void end() {
+            Iterator<Map.Entry<Key, GlyphAtlas>> i = atlases.entrySet().iterator();
+            while (i.hasNext()) {
+                Map.Entry<Key, GlyphAtlas> entry = i.next();
+                if (!used.containsKey(entry.getKey())) {
+                    entry.getValue().recycle();
+                    i.remove();
+                }
+            }
+        }
+
+        public void clear() {
+            for (GlyphAtlas atlas : atlases.values()) {
+                atlas.recycle();
+            }
+            atlases.clear();
+            used.clear();
+        }
+
+        public int getByteCount() {
+            int result = 0;
+            for (GlyphAtlas atlas : atlases.values()) {
+                result += atlas.getByteCount();
+            }
+            return result;
+        }
+    }
+
+    /* sorted, for binary search */
+    private final char[] chars;
+    private final float[] advances;
+    private final Bitmap bitmap;
+
+    /* each glyph's cell, and the pen position within every cell */
+    private final Rect[] glyphCells;
+    private final int glyphOriginX;
+    private final int glyphOriginY;
+
+    /* the same for the shadow, in cells of its own below the glyphs; null without one */
+    private final Rect[] shadowCells;
+    private final int shadowOriginX;
+    private final int shadowOriginY;
+
+    private final Rect dst = new Rect();
+
+    public GlyphAtlas(Paint paint, float shadowRadius, float shadowDx, float shadowDy, int shadowColor,
+                      String glyphs) {
+        this(paint, shadowRadius, shadowDx, shadowDy, shadowColor, glyphs, false);
+    }
+
+    public GlyphAtlas(Paint paint, float shadowRadius, float shadowDx, float shadowDy, int shadowColor,
+                      String glyphs, boolean mask) {
+        if (glyphs.indexOf(SPACE) < 0) {
+            /* for letter spacing */
+            glyphs += SPACE;
+        }
+        chars = glyphs.toCharArray();
+        Arrays.sort(chars);
+        advances = new float[chars.length];
+
+        Paint p = new Paint(paint);
+        p.setTextAlign(Paint.Align.LEFT);
+        p.clearShadowLayer();
+        for (int i = 0; i < chars.length; i += 1) {
+            advances[i] = p.measureText(chars, i, 1);
+        }
+        Paint.FontMetrics metrics = p.getFontMetrics();
+        int ascent = (int) Math.ceil(-metrics.top);
+        int descent = (int) Math.ceil(metrics.bottom);
+        int skew = (int) Math.ceil(Math.abs(p.getTextSkewX() * p.getTextSize()));
+
+        int glyphPadX = skew + 2;
+        int glyphPadY = 2;
+        glyphCells = new Rect[chars.length];
+        glyphOriginX = glyphPadX;
+        glyphOriginY = glyphPadY + ascent;
+        int height = layOutCells(glyphCells, glyphPadX, glyphOriginY + descent + glyphPadY, 0);
+
+        int dx = 0;
+        int dy = 0;
+        int reach = 0;
+        if (shadowRadius > 0) {
+            dx = Math.round(shadowDx);
+            dy = Math.round(shadowDy);
+            reach = BoxBlur.reach(BoxBlur.radiusToSigma(shadowRadius));
+            /* room for everything the blur and the offset can reach, so no cell's shadow is cut off */
+            int shadowPadX = skew + reach + Math.abs(dx) + 2;
+            int shadowPadY = reach + Math.abs(dy) + 2;
+            shadowCells = new Rect[chars.length];
+            shadowOriginX = shadowPadX;
+            shadowOriginY = shadowPadY + ascent;
+            height = layOutCells(shadowCells, shadowPadX, shadowOriginY + descent + shadowPadY, height);
+        } else {
+            shadowCells = null;
+            shadowOriginX = 0;
+            shadowOriginY = 0;
+        }
+
+        int width = 1;
+        for (int i = 0; i < chars.length; i += 1) {
+            width = Math.max(width, glyphCells[i].right);
+            if (shadowCells != null) {
+                width = Math.max(width, shadowCells[i].right);
+            }
+        }
+        bitmap = Bitmap.createBitmap(width, Math.max(height, 1),
+                mask ? Bitmap.Config.ALPHA_8 : Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        drawGlyphs(canvas, p, glyphCells, glyphOriginX, glyphOriginY);
+        if (shadowCells != null) {
+            drawShadows(p, BoxBlur.radiusToSigma(shadowRadius), dx, dy, shadowColor);
+        }
+    }
+
+    /* lays a cell for each glyph out in rows from top, each padX wider on both sides; returns the bottom */
+    private int layOutCells(Rect[] cells, int padX, int cellHeight, int top) {
+        int x = 0;
+        int y = top;
+        for (int i = 0; i < chars.length; i += 1) {
+            if (chars[i] == SPACE) {
+                cells[i] = new Rect();
+                continue;
+            }
+            int cellWidth = (int) Math.ceil(advances[i]) + padX * 2;
+            if (x > 0 && x + cellWidth > MAX_WIDTH) {
+                x = 0;
+                y += cellHeight;
+            }
+            cells[i] = new Rect(x, y, x + cellWidth, y + cellHeight);
+            x += cellWidth;
+        }
+        return y + cellHeight;
+    }
+
+    /* each glyph clipped to its cell, so none can spill into another's */
+    private void drawGlyphs(Canvas canvas, Paint p, Rect[] cells, int originX, int originY) {
+        for (int i = 0; i < chars.length; i += 1) {
+            if (chars[i] == SPACE) {
+                continue;
+            }
+            canvas.save();
+            canvas.clipRect(cells[i]);
+            canvas.drawText(chars, i, 1, cells[i].left + originX, cells[i].top + originY, p);
+            canvas.restore();
+        }
+    }
+
+    /**
+     * Blurs each glyph's mask on its own, the way a shadow layer would
+     * on every frame, and writes the result tinted and offset into the
+     * glyph's shadow cell.
+     */
+    private void drawShadows(Paint p, float sigma, int dx, int dy, int color) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        Bitmap mask = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+        drawGlyphs(new Canvas(mask), p, shadowCells, shadowOriginX, shadowOriginY);
+
+        int alpha = Color.alpha(color);
+        int rgb = color & 0xffffff;
+        for (int i = 0; i < chars.length; i += 1) {
+            if (chars[i] == SPACE) {
+                continue;
+            }
+            Rect cell = shadowCells[i];
+            int cellWidth = cell.width();
+            int cellHeight = cell.height();
+            int[] pixels = new int[cellWidth * cellHeight];
+            mask.getPixels(pixels, 0, cellWidth, cell.left, cell.top, cellWidth, cellHeight);
+            for (int j = 0; j < pixels.length; j += 1) {
+                pixels[j] = pixels[j] >>> 24;
+            }
+            BoxBlur.blur(pixels, cellWidth, cellHeight, sigma);
+
+            int[] shadow = new int[pixels.length];
+            for (int y = Math.max(0, dy); y < cellHeight + Math.min(0, dy); y += 1) {
+                for (int x = Math.max(0, dx); x < cellWidth + Math.min(0, dx); x += 1) {
+                    int value = pixels[(y - dy) * cellWidth + x - dx];
+                    shadow[y * cellWidth + x] = ((value * alpha / 255) << 24) | rgb;
+                }
+            }
+            bitmap.setPixels(shadow, 0, cellWidth, cell.left, cell.top, cellWidth, cellHeight);
+        }
+        mask.recycle();
+    }
+
+    /**
+     * Draws text the way {@code Canvas.drawText} would with the
+     * paint this atlas was built from, aligned as specified: the whole
+     * shadow first, then the glyphs over it.  Returns false without
+     * drawing anything if the text contains a glyph that isn't in the
+     * atlas.
+     */
+    public boolean drawText(Canvas canvas, char[] text, int count, float x, float y, Paint.Align align) {
+        float width = 0;
+        for (int i = 0; i < count; i += 1) {
+            int index = Arrays.binarySearch(chars, text[i]);
+            if (index < 0) {
+                return false;
+            }
+            width += advances[index];
+        }
+        if (align == Paint.Align.CENTER) {
+            x -= width / 2f;
+        } else if (align == Paint.Align.RIGHT) {
+            x -= width;
+        }
+        int baseline = Math.round(y);
+        if (shadowCells != null) {
+            drawCells(canvas, text, count, x, baseline, shadowCells, shadowOriginX, shadowOriginY);
+        }
+        drawCells(canvas, text, count, x, baseline, glyphCells, glyphOriginX, glyphOriginY);
+        return true;
+    }
+
+    private void drawCells(Canvas canvas, char[] text, int count, float x, int baseline,
+                           Rect[] cells, int originX, int originY) {
+        int top = baseline - originY;
+        for (int i = 0; i < count; i += 1) {
+            int index = Arrays.binarySearch(chars, text[i]);
+            if (text[i] != SPACE) {
+                Rect src = cells[index];
+                int left = Math.round(x) - originX;
+                dst.set(left, top, left + src.width(), top + src.height());
+                canvas.drawBitmap(bitmap, src, dst, null);
+            }
+            x += advances[index];
+        }
+    }
+
+    /* for tests */
+    Bitmap getBitmap() {
+        return bitmap;
+    }
+
+    /* for tests; null for a space, or without a shadow */
+    Rect getShadowCell(char c) {
+        int index = Arrays.binarySearch(chars, c);
+        return shadowCells == null || index < 0 || c == SPACE ? null : shadowCells[index];
+    }
+
+    public int getByteCount() {
+        return bitmap.getByteCount();
+    }
+
+    public void recycle() {
+        bitmap.recycle();
+    }
+}
@@ -1,5 +0,0 @@
-package com.webonastick.watchface;
-
-public interface MultiTapEventHandler<RegionType> {
-    public void onMultiTapCommand(RegionType region, int numberOfTaps);
-}
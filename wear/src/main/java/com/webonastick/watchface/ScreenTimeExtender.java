@@ -2,10 +2,19 @@ package com.webonastick.watchface;
 
 import android.content.ContextWrapper;
 import android.os.PowerManager;
+import android.os.SystemClock;
 import android.util.Log;
 
 import static android.content.Context.POWER_SERVICE;
 
+/**
+ * Keeps the screen on for a while after the last user interaction.
+ * <p>
+ * There is at most one outstanding wake lock.  Interactions only
+ * record a timestamp; the lock is extended when less than a third of
+ * its time is left, and released once the watch face has been idle
+ * for the whole timeout.
+ */
 public class ScreenTimeExtender {
     private static final String TAG = "ScreenTimeExtender";
     private int seconds = 15;
@@ -14,6 +23,15 @@ public class ScreenTimeExtender {
     private PowerManager.WakeLock wakeLock = null;
     private ContextWrapper contextWrapper = null;
 
+    /* uptime of the last interaction, and when the lock times out by itself; -1 if not held */
+    private long lastInteractionMillis = -1;
+    private long heldSinceMillis = -1;
+    private long heldUntilMillis = -1;
+
+    /* so the battery cost can be seen */
+    private int acquisitionCount = 0;
+    private long totalHoldMillis = 0;
+
     public ScreenTimeExtender(ContextWrapper contextWrapper, int seconds) {
         this.seconds = seconds;
         this.contextWrapper = contextWrapper;
@@ -25,16 +43,16 @@ public class ScreenTimeExtender {
     public void setTimeout(int seconds) {
         if (seconds > 0) {
             this.seconds = seconds;
-            acquireWakeLock();
+            clearIdle();
         } else {
             this.seconds = 0;
             releaseWakeLock();
         }
     }
 
-    private void acquireWakeLock() {
-        if (seconds <= 0 || denied) {
-            return;
+    private boolean createWakeLock() {
+        if (denied) {
+            return false;
         }
         if (powerManager == null) {
             try {
@@ -42,11 +60,12 @@ public class ScreenTimeExtender {
             } catch (Exception e) {
                 Log.e(TAG, "error creating PowerManager object: " + e.getLocalizedMessage());
                 denied = true;
-                return;
+                return false;
             }
         }
         if (wakeLock == null) {
             try {
+                /* watch faces have no window to set FLAG_KEEP_SCREEN_ON on */
                 wakeLock = powerManager.newWakeLock(
                         PowerManager.FULL_WAKE_LOCK,
                         "PilotWatch::WakeLockTag"
@@ -54,32 +73,97 @@ public class ScreenTimeExtender {
             } catch (Exception e) {
                 Log.e(TAG, "error creating full wake lock: " + e.getLocalizedMessage());
                 denied = true;
-                return;
+                return false;
             }
+            /* acquiring again only moves the timeout */
+            wakeLock.setReferenceCounted(false);
+        }
+        return true;
+    }
+
+    /* notices a lock that timed out by itself */
+    private void updateHeld(long now) {
+        if (heldSinceMillis >= 0 && now >= heldUntilMillis) {
+            totalHoldMillis += heldUntilMillis - heldSinceMillis;
+            heldSinceMillis = -1;
+            heldUntilMillis = -1;
+        }
+    }
+
+    /* holds the lock until the idle timeout after the last interaction */
+    private void extendWakeLock(long now) {
+        if (!createWakeLock()) {
+            return;
+        }
+        long timeoutMillis = lastInteractionMillis + seconds * 1000L - now;
+        if (timeoutMillis <= 0) {
+            return;
         }
-        wakeLock.acquire(seconds * 1000L);
+        wakeLock.acquire(timeoutMillis);
+        if (heldSinceMillis < 0) {
+            heldSinceMillis = now;
+            acquisitionCount += 1;
+        }
+        heldUntilMillis = now + timeoutMillis;
     }
 
     private void releaseWakeLock() {
-        if (seconds <= 0 || denied) {
+        long now = SystemClock.uptimeMillis();
+        updateHeld(now);
+        if (heldSinceMillis < 0) {
             return;
         }
-        if (wakeLock != null) {
+        if (wakeLock != null && wakeLock.isHeld()) {
             wakeLock.release();
         }
+        totalHoldMillis += now - heldSinceMillis;
+        heldSinceMillis = -1;
+        heldUntilMillis = -1;
+    }
+
+    /* less than a third of the timeout left */
+    private boolean needsExtending(long now) {
+        return heldSinceMillis < 0 || (heldUntilMillis - now) * 3 < seconds * 1000L;
     }
 
+    /* call on every user interaction */
     public void clearIdle() {
         if (seconds <= 0) {
             return;
         }
-        acquireWakeLock();
+        long now = SystemClock.uptimeMillis();
+        lastInteractionMillis = now;
+        updateHeld(now);
+        if (needsExtending(now)) {
+            extendWakeLock(now);
+        }
     }
 
+    /* cheap enough to call every frame */
     public void checkIdle() {
-        if (seconds <= 0) {
+        if (heldSinceMillis < 0) {
             return;
         }
-        // PLACEHOLDER --- DO NOT DELETE
+        long now = SystemClock.uptimeMillis();
+        if (now - lastInteractionMillis >= seconds * 1000L) {
+            releaseWakeLock();
+        } else if (needsExtending(now)) {
+            updateHeld(now);
+            extendWakeLock(now);
+        }
+    }
+
+    public int getAcquisitionCount() {
+        return acquisitionCount;
+    }
+
+    /* including the lock currently held, if any */
+    public long getTotalHoldMillis() {
+        long now = SystemClock.uptimeMillis();
+        updateHeld(now);
+        if (heldSinceMillis >= 0) {
+            return totalHoldMillis + now - heldSinceMillis;
+        }
+        return totalHoldMillis;
     }
 }
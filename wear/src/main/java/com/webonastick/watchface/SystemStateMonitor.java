@@ -0,0 +1,169 @@
+package com.webonastick.watchface;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.text.format.DateFormat;
+
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Caches the 12/24-hour clock setting, locale, and time zone, and
+ * tells the listener about changes as they happen, so that nothing
+ * has to query the settings provider while drawing.
+ */
+public class SystemStateMonitor {
+    private static final String TAG = "SystemStateMonitor";
+
+    public interface Listener {
+        public void onClockFormatChanged(boolean is24Hour);
+        public void onLocaleChanged(Locale locale);
+        public void onTimeZoneChanged(TimeZone timeZone);
+        public void onTimeSet();
+        public void onDateChanged();
+    }
+
+    private boolean is24Hour = false;
+    private Locale locale = null;
+    private TimeZone timeZone = null;
+    private long lastTimeSetElapsedRealtime = -1;
+
+    private BroadcastReceiver broadcastReceiver = null;
+    private IntentFilter intentFilter = null;
+    private ContentObserver contentObserver = null;
+    private boolean registered = false;
+
+    private Listener listener = null;
+    private ContextWrapper contextWrapper = null;
+
+    public SystemStateMonitor(ContextWrapper contextWrapper, Listener listener) {
+        this.contextWrapper = contextWrapper;
+        this.listener = listener;
+        this.locale = Locale.getDefault();
+        this.timeZone = TimeZone.getDefault();
+        this.is24Hour = queryIs24Hour();
+    }
+
+    public void start() {
+        if (registered) {
+            return;
+        }
+        if (broadcastReceiver == null) {
+            broadcastReceiver = new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    String action = intent.getAction();
+                    if (Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+                        updateTimeZone();
+                    } else if (Intent.ACTION_TIME_CHANGED.equals(action)) {
+                        lastTimeSetElapsedRealtime = SystemClock.elapsedRealtime();
+                        listener.onTimeSet();
+                    } else if (Intent.ACTION_LOCALE_CHANGED.equals(action)) {
+                        updateLocale();
+                        /* 12/24-hour default depends on locale */
+                        updateClockFormat();
+                    } else if (Intent.ACTION_DATE_CHANGED.equals(action)) {
+                        listener.onDateChanged();
+                    }
+                }
+            };
+            intentFilter = new IntentFilter();
+            intentFilter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+            intentFilter.addAction(Intent.ACTION_TIME_CHANGED);
+            intentFilter.addAction(Intent.ACTION_LOCALE_CHANGED);
+            intentFilter.addAction(Intent.ACTION_DATE_CHANGED);
+            contentObserver = new ContentObserver(new Handler()) {
+                @Override
+                public void onChange(boolean selfChange) {
+                    updateClockFormat();
+                }
+            };
+        }
+        contextWrapper.registerReceiver(broadcastReceiver, intentFilter);
+        contextWrapper.getContentResolver().registerContentObserver(
+                Settings.System.getUriFor(Settings.System.TIME_12_24), false, contentObserver
+        );
+        registered = true;
+
+        /* catch up on anything that changed while we weren't listening */
+        updateTimeZone();
+        updateLocale();
+        updateClockFormat();
+    }
+
+    public void stop() {
+        if (!registered) {
+            return;
+        }
+        contextWrapper.unregisterReceiver(broadcastReceiver);
+        contextWrapper.getContentResolver().unregisterContentObserver(contentObserver);
+        registered = false;
+    }
+
+    private void updateTimeZone() {
+        TimeZone newTimeZone = TimeZone.getDefault();
+        if (newTimeZone.hasSameRules(timeZone) && newTimeZone.getID().equals(timeZone.getID())) {
+            return;
+        }
+        timeZone = newTimeZone;
+        listener.onTimeZoneChanged(timeZone);
+    }
+
+    private void updateLocale() {
+        Locale newLocale = Locale.getDefault();
+        if (newLocale.equals(locale)) {
+            return;
+        }
+        locale = newLocale;
+        listener.onLocaleChanged(locale);
+    }
+
+    private void updateClockFormat() {
+        boolean newIs24Hour = queryIs24Hour();
+        if (newIs24Hour == is24Hour) {
+            return;
+        }
+        is24Hour = newIs24Hour;
+        listener.onClockFormatChanged(is24Hour);
+    }
+
+    private boolean queryIs24Hour() {
+        int is24HourInt;
+        try {
+            is24HourInt = Settings.System.getInt(contextWrapper.getContentResolver(), Settings.System.TIME_12_24);
+        } catch (Settings.SettingNotFoundException e) {
+            is24HourInt = -1;
+        }
+        if (is24HourInt == 24) {
+            return true;
+        } else if (is24HourInt == 12) {
+            return false;
+        } else {
+            return DateFormat.is24HourFormat(contextWrapper);
+        }
+    }
+
+    public boolean is24Hour() {
+        return is24Hour;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    public TimeZone getTimeZone() {
+        return timeZone;
+    }
+
+    /* SystemClock.elapsedRealtime() of the last manual time change, or -1 */
+    public long getLastTimeSetElapsedRealtime() {
+        return lastTimeSetElapsedRealtime;
+    }
+}
@@ -0,0 +1,74 @@
+package com.webonastick.watchface;
+
+import android.content.res.AssetManager;
+import android.graphics.Typeface;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Loads typefaces from asset files once and keeps the most recently
+ * used ones, so switching themes or fonts back and forth doesn't
+ * parse the same font file again.
+ * <p>
+ * Least recently used typefaces are dropped once there are more than
+ * maxSize of them.
+ */
+public class TypefaceRegistry {
+    private static final String TAG = "TypefaceRegistry";
+
+    private final AssetManager assets;
+    private int maxSize;
+    private final LinkedHashMap<String, Typeface> typefaces;
+
+    public TypefaceRegistry(AssetManager assets, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.assets = assets;
+        this.maxSize = maxSize;
+        this.typefaces = new LinkedHashMap<String, Typeface>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Typeface> eldest) {
+                return size() > TypefaceRegistry.this.maxSize;
+            }
+        };
+    }
+
+    /* filename is relative to the assets directory, e.g. "fonts/DSEG7Classic-Regular.ttf" */
+    public synchronized Typeface get(String filename) {
+        Typeface typeface = typefaces.get(filename);
+        if (typeface == null) {
+            typeface = Typeface.createFromAsset(assets, filename);
+            typefaces.put(filename, typeface);
+        }
+        return typeface;
+    }
+
+    public synchronized boolean contains(String filename) {
+        return typefaces.containsKey(filename);
+    }
+
+    public synchronized int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized void setMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.maxSize = maxSize;
+        while (typefaces.size() > maxSize) {
+            String eldest = typefaces.keySet().iterator().next();
+            typefaces.remove(eldest);
+        }
+    }
+
+    public synchronized int size() {
+        return typefaces.size();
+    }
+
+    public synchronized void clear() {
+        typefaces.clear();
+    }
+}
@@ -0,0 +1,1358 @@
+package com.webonastick.watchface.ledwatch;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+import com.webonastick.ledwatch.R;
+import com.webonastick.watchface.DamageTracker;
+import com.webonastick.watchface.GlyphAtlas;
+import com.webonastick.watchface.TypefaceRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Draws {@link WatchFaceState}s.
+ * <p>
+ * Frames are rendered into an offscreen frame bitmap, redrawing only
+ * the fields whose values changed, then copied to the surface.  A
+ * state equal to the last one rendered costs nothing to render, and
+ * the previous frame can be presented again as is.
+ * <p>
+ * Theme, clock format, and ambient mode come from the state; device
+ * and surface properties are set by the engine.
+ */
+public class LEDWatchFaceRenderer {
+    private static final String TAG = "LEDWatchFaceRenderer";
+
+    /* fields tracked for partial redraws */
+    static final int FIELD_HOURS = LayoutSpec.FIELD_HOURS;
+    static final int FIELD_MINUTES = LayoutSpec.FIELD_MINUTES;
+    static final int FIELD_COLON = LayoutSpec.FIELD_COLON;
+    static final int FIELD_AM_PM = LayoutSpec.FIELD_AM_PM;
+    static final int FIELD_DAY_OF_WEEK = LayoutSpec.FIELD_DAY_OF_WEEK;
+    static final int FIELD_DAY_OF_MONTH = LayoutSpec.FIELD_DAY_OF_MONTH;
+    static final int FIELD_BATTERY = LayoutSpec.FIELD_BATTERY;
+    static final int FIELD_SECONDS = LayoutSpec.FIELD_SECONDS;
+    static final int FIELD_SECONDS_PIE = LayoutSpec.FIELD_SECONDS_PIE;
+    static final int FIELD_COUNT = LayoutSpec.FIELD_COUNT;
+
+    /* glyphs each paint can be asked to draw */
+    private static final String GLYPHS_SEVEN_SEGMENT = "0123456789!";
+    private static final String GLYPHS_FOURTEEN_SEGMENT = "0123456789!%?ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String GLYPHS_SIXTHS_OF_A_PIE = "\uf000\uf001\uf002\uf003\uf004\uf005";
+    private static final String GLYPHS_AM_PM = "AP";
+
+    private static final char[] AM_CHARS = { 'A' };
+    private static final char[] PM_CHARS = { 'P' };
+
+    private static final Typeface AM_PM_TYPEFACE =
+            Typeface.create(Typeface.SANS_SERIF, Typeface.NORMAL);
+    private static final Typeface mTextTypeface = Typeface.SANS_SERIF;
+
+    private static final String SIXTHS_OF_A_PIE_FONT_FILENAME = "fonts/sixths-of-a-pie.ttf";
+
+    private final Context mContext;
+
+    private Utility.LEDWatchThemeMode mThemeMode = Utility.LEDWatchThemeMode.LED;
+    private Utility.LEDWatchThemeColor mThemeColor = Utility.LEDWatchThemeColor.BLUE;
+
+    /* overrides mThemeColor unless zero */
+    private int mCustomColor = 0;
+
+    private DSEGFont mFont;
+
+    private float mYOffsetTop;
+    private float mYOffsetMiddle;
+    private float mYOffsetBottom;
+
+    private float mXOffsetMiddle;
+    private float mXOffsetLeft;
+    private float mXOffsetRight;
+
+    private float mXOffsetTopLeft;
+    private float mXOffsetTopRight;
+
+    private float mXOffsetBottomLeft;
+    private float mXOffsetBottomRight;
+    private float mXOffsetBottomRight2;
+
+    private float mXOffsetAmPm;
+    private float mYOffsetAm;
+    private float mYOffsetPm;
+
+    private float mYOffsetTopMiddle;
+    private float mYOffsetMiddleBottom;
+
+    private Paint mBackgroundPaint = null;
+    private Paint mTextPaintMiddle = null;
+    private Paint mTextPaintLeft = null;
+    private Paint mTextPaintRight = null;
+    private Paint mTextPaintTopLeft = null;
+    private Paint mTextPaintTopRight = null;
+    private Paint mTextPaintBottomLeft = null;
+    private Paint mTextPaintBottomRight = null;
+    private Paint mTextPaintBottomRight2 = null;
+    private Paint mTextPaintAmPm = null;
+
+    private boolean mLowBitAmbient;
+    private boolean mBurnInProtection;
+    private boolean mAmbient;
+    private boolean mIsRound;
+    private boolean mIs24Hour;
+
+    private Typeface mSevenSegmentTypeface;
+    private Typeface mFourteenSegmentTypeface;
+
+    private int mSurfaceWidth;
+    private int mSurfaceHeight;
+
+    /* faint segments and the watch face name, or a mask of them in ambient mode */
+    private Bitmap mBackgroundBitmap;
+
+    /* a few recent backgrounds, so switching back to a color doesn't redraw it */
+    private static final int BACKGROUND_CACHE_SIZE = 3;
+    private final LinkedHashMap<BackgroundKey, Bitmap> mBackgroundBitmaps =
+            new LinkedHashMap<BackgroundKey, Bitmap>(BACKGROUND_CACHE_SIZE + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<BackgroundKey, Bitmap> eldest) {
+                    if (size() > BACKGROUND_CACHE_SIZE) {
+                        eldest.getValue().recycle();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+    private int mBackgroundsDrawn = 0;
+
+    /*
+     * In ambient mode everything is white on black, so the background
+     * and frame bitmaps only hold alpha and are tinted when drawn.
+     */
+    private boolean mAlphaMasks = false;
+    private final Paint mMaskPaint = new Paint();
+
+    private int mFaintAlpha = 0;
+    private int mLetterSpacing = 0;
+    private int mLetterSpacing2 = 0;
+    private float mSmallerTextSizeRatio = 0.5f;
+
+    private int mForegroundColor = Color.WHITE;
+    private int mBackgroundColor = Color.BLACK;
+    private int mFaintForegroundColor = Color.BLACK;
+
+    private final boolean mShowDayOfWeek = true;
+    private final boolean mShowDayOfMonth = true;
+    private final boolean mShowBatteryLevel = true;
+    private final boolean mShowSeconds = true;
+
+    /* how often the seconds pie can be redrawn in ambient mode; hidden if a minute or more */
+    private int mAmbientSecondsStep = 10;
+
+    /* controls whether to display "100" or "100%" */
+    private final boolean m100SansPercent = false;
+
+    private Typeface mSixthsOfAPieTypeface;
+    private final TypefaceRegistry mTypefaceRegistry;
+    private final LayoutSolver mLayoutSolver;
+    private final LayoutSolver.Key mLayoutKey = new LayoutSolver.Key();
+    private LayoutSpec mLayout;
+    private final PaletteCache mPaletteCache;
+    private final HitTestIndex mHitTestIndex = new HitTestIndex();
+
+    /* mainly for screenshots */
+    private boolean mDemoTimeMode = false;
+
+    private float mPixelDensity = 1f;
+
+    private boolean mShowVersionNumber;
+
+    /* preallocated text for each field, rebuilt every frame without allocating */
+    private final SegmentText mTextLeft = new SegmentText(2);
+    private final SegmentText mTextRight = new SegmentText(2);
+    private final SegmentText mTextMiddle = new SegmentText(1);
+    private final SegmentText mTextTopLeft = new SegmentText(3);
+    private final SegmentText mTextTopRight = new SegmentText(3);
+    private final SegmentText mTextBottomLeft = new SegmentText(4);
+    private final SegmentText mTextBottomRight = new SegmentText(3);
+    private final SegmentText mTextBottomRight2 = new SegmentText(1);
+
+    /* rebuilt when the locale changes */
+    private WeekdayLabels mWeekdayLabels;
+
+    /* what each field last showed and where it is drawn */
+    private final DamageTracker mDamageTracker = new DamageTracker(FIELD_COUNT);
+
+    private float mShadowRadius;
+    private float mShadowDx;
+    private float mShadowDy;
+    private int mShadowColor;
+
+    /* lit glyphs pre-rasterized for each paint, rebuilt when properties change */
+    private final GlyphAtlas.Cache mGlyphAtlases = new GlyphAtlas.Cache();
+    private GlyphAtlas mAtlasMiddle;
+    private GlyphAtlas mAtlasLeft;
+    private GlyphAtlas mAtlasRight;
+    private GlyphAtlas mAtlasTopLeft;
+    private GlyphAtlas mAtlasTopRight;
+    private GlyphAtlas mAtlasBottomLeft;
+    private GlyphAtlas mAtlasBottomRight;
+    private GlyphAtlas mAtlasBottomRight2;
+    private GlyphAtlas mAtlasAmPm;
+
+    /* the last frame rendered */
+    private Bitmap mFrameBitmap;
+    private Canvas mFrameCanvas;
+    private WatchFaceState mState = null;
+    private final Rect mDirtyBounds = new Rect();
+
+    /* set when the next frame has to be drawn from scratch */
+    private boolean mPropertiesDirty = true;
+    private boolean mFrameDirty = true;
+
+    /* the typeface registry, layout solver, and palette cache may be shared between renderers on different threads */
+    public LEDWatchFaceRenderer(Context context, WeekdayLabels weekdayLabels,
+                                TypefaceRegistry typefaceRegistry, LayoutSolver layoutSolver,
+                                PaletteCache paletteCache) {
+        mContext = context;
+        mWeekdayLabels = weekdayLabels;
+
+        mTypefaceRegistry = typefaceRegistry;
+        mLayoutSolver = layoutSolver;
+        mPaletteCache = paletteCache;
+        mSixthsOfAPieTypeface = mTypefaceRegistry.get(SIXTHS_OF_A_PIE_FONT_FILENAME);
+
+        mTextPaintMiddle = new Paint();
+        mTextPaintLeft = new Paint();
+        mTextPaintRight = new Paint();
+        mTextPaintTopLeft = new Paint();
+        mTextPaintTopRight = new Paint();
+        mTextPaintBottomLeft = new Paint();
+        mTextPaintBottomRight = new Paint();
+        mTextPaintBottomRight2 = new Paint();
+        mTextPaintAmPm = new Paint();
+
+        setTextSkewX(textSkewX());
+    }
+
+    // BEGIN CONFIGURATION
+
+    /* everything but the state, e.g. for a renderer prepared for another theme */
+    public void copyConfiguration(LEDWatchFaceRenderer renderer) {
+        setSurface(renderer.mSurfaceWidth, renderer.mSurfaceHeight, renderer.mPixelDensity);
+        setRound(renderer.mIsRound);
+        setDeviceProperties(renderer.mLowBitAmbient, renderer.mBurnInProtection);
+        setDemoTimeMode(renderer.mDemoTimeMode);
+        setShowVersionNumber(renderer.mShowVersionNumber);
+        setAmbientSecondsStep(renderer.mAmbientSecondsStep);
+        setWeekdayLabels(renderer.mWeekdayLabels);
+    }
+
+    public void setSurface(int width, int height, float pixelDensity) {
+        if (width == mSurfaceWidth && height == mSurfaceHeight && pixelDensity == mPixelDensity) {
+            return;
+        }
+        mSurfaceWidth = width;
+        mSurfaceHeight = height;
+        mPixelDensity = pixelDensity;
+        mPropertiesDirty = true;
+    }
+
+    public void setRound(boolean isRound) {
+        if (isRound != mIsRound) {
+            mIsRound = isRound;
+            mPropertiesDirty = true;
+        }
+    }
+
+    public void setDeviceProperties(boolean lowBitAmbient, boolean burnInProtection) {
+        if (lowBitAmbient != mLowBitAmbient || burnInProtection != mBurnInProtection) {
+            mLowBitAmbient = lowBitAmbient;
+            mBurnInProtection = burnInProtection;
+            mPropertiesDirty = true;
+        }
+    }
+
+    public void setDemoTimeMode(boolean demoTimeMode) {
+        if (demoTimeMode != mDemoTimeMode) {
+            mDemoTimeMode = demoTimeMode;
+            mPropertiesDirty = true;
+        }
+    }
+
+    public void setShowVersionNumber(boolean showVersionNumber) {
+        if (showVersionNumber != mShowVersionNumber) {
+            mShowVersionNumber = showVersionNumber;
+            mBackgroundBitmap = null;
+            mFrameDirty = true;
+        }
+    }
+
+    public boolean getShowVersionNumber() {
+        return mShowVersionNumber;
+    }
+
+    public boolean getShowBatteryLevel() {
+        return mShowBatteryLevel;
+    }
+
+    public boolean getShowSeconds() {
+        return mShowSeconds;
+    }
+
+    /* zero also hides the pie */
+    public void setAmbientSecondsStep(int seconds) {
+        if (seconds != mAmbientSecondsStep) {
+            boolean showSecondsPie = showSecondsPie();
+            mAmbientSecondsStep = seconds;
+            if (showSecondsPie != showSecondsPie()) {
+                mBackgroundBitmap = null;
+            }
+            mFrameDirty = true;
+        }
+    }
+
+    private boolean showSecondsPie() {
+        return mAmbientSecondsStep > 0 && mAmbientSecondsStep < 60;
+    }
+
+    /* the ambient background's faint pie, only under a pie that can light up */
+    private boolean showFaintSecondsPie() {
+        return mAmbient && showSecondsPie();
+    }
+
+    public void setWeekdayLabels(WeekdayLabels weekdayLabels) {
+        mWeekdayLabels = weekdayLabels;
+        mFrameDirty = true;
+    }
+
+    /* boundaries between the top, middle, and bottom tap regions */
+    public float getYOffsetTopMiddle() {
+        return mYOffsetTopMiddle;
+    }
+
+    public float getYOffsetMiddleBottom() {
+        return mYOffsetMiddleBottom;
+    }
+
+    /* where taps go; only valid once a frame has been rendered */
+    public HitTestIndex getHitTestIndex() {
+        return mHitTestIndex;
+    }
+
+    /* theme, font, clock format, and ambient mode */
+    private void applyState(WatchFaceState state) {
+        if (state.getThemeMode() != mThemeMode ||
+                state.getThemeColor() != mThemeColor ||
+                state.getCustomColor() != mCustomColor ||
+                !state.getFont().equals(mFont) ||
+                state.is24Hour() != mIs24Hour ||
+                state.isAmbient() != mAmbient) {
+            mThemeMode = state.getThemeMode();
+            mThemeColor = state.getThemeColor();
+            mCustomColor = state.getCustomColor();
+            mFont = state.getFont();
+            mIs24Hour = state.is24Hour();
+            mAmbient = state.isAmbient();
+            mPropertiesDirty = true;
+        }
+    }
+
+    // END CONFIGURATION
+
+    // BEGIN FRAME
+
+    /**
+     * Brings the frame bitmap up to date with a state.  Returns false
+     * if nothing visible changed since the last frame.
+     */
+    public boolean render(WatchFaceState state) {
+        mDirtyBounds.setEmpty();
+        if (mSurfaceWidth <= 0 || mSurfaceHeight <= 0) {
+            return false;
+        }
+        if (state == mState && !mPropertiesDirty && !mFrameDirty) {
+            return false;
+        }
+        applyState(state);
+        updatePropertiesIfDirty();
+        createBackgroundBitmap(mSurfaceWidth, mSurfaceHeight);
+        createFrameBitmap(mSurfaceWidth, mSurfaceHeight);
+
+        mState = state;
+        if (mFrameDirty) {
+            mDamageTracker.invalidateAll();
+        }
+        updateFields(state);
+        if (mFrameDirty) {
+            drawBackground(mFrameCanvas);
+            drawFields(mFrameCanvas, null);
+            mDirtyBounds.set(0, 0, mSurfaceWidth, mSurfaceHeight);
+            mFrameDirty = false;
+        } else if (mDamageTracker.hasDamage()) {
+            mDirtyBounds.set(mDamageTracker.getDirtyBounds());
+            mFrameCanvas.save();
+            mFrameCanvas.clipRect(mDirtyBounds);
+            drawBackground(mFrameCanvas);
+            drawFields(mFrameCanvas, mDirtyBounds);
+            mFrameCanvas.restore();
+        }
+        mDamageTracker.clearDirty();
+        return !mDirtyBounds.isEmpty();
+    }
+
+    /**
+     * Gets everything but the frame ready for a state: paints, glyph
+     * atlases, and the background.  No frame bitmap is allocated until
+     * the next render, which can reuse another renderer's with
+     * {@link #takeFrame}.
+     */
+    public void prepare(WatchFaceState state) {
+        if (mSurfaceWidth <= 0 || mSurfaceHeight <= 0) {
+            return;
+        }
+        applyState(state);
+        updatePropertiesIfDirty();
+        createBackgroundBitmap(mSurfaceWidth, mSurfaceHeight);
+    }
+
+    private void updatePropertiesIfDirty() {
+        if (mPropertiesDirty) {
+            updateProperties();
+            mBackgroundBitmap = null;
+            mPropertiesDirty = false;
+            mFrameDirty = true;
+        }
+    }
+
+    /* takes over the frame bitmap of the renderer this one replaces, so there is only ever one */
+    public void takeFrame(LEDWatchFaceRenderer renderer) {
+        if (renderer.mFrameBitmap == null) {
+            return;
+        }
+        if (mFrameBitmap != null) {
+            mFrameBitmap.recycle();
+        }
+        mFrameBitmap = renderer.mFrameBitmap;
+        mFrameCanvas = renderer.mFrameCanvas;
+        renderer.mFrameBitmap = null;
+        renderer.mFrameCanvas = null;
+        mFrameDirty = true;
+    }
+
+    /* area of the frame the last call to render changed */
+    public Rect getDirtyBounds() {
+        return mDirtyBounds;
+    }
+
+    /* presents the last frame rendered */
+    public void drawFrame(Canvas canvas) {
+        if (mFrameBitmap == null) {
+            canvas.drawColor(Color.BLACK);
+            return;
+        }
+        if (mFrameBitmap.getConfig() == Bitmap.Config.ALPHA_8) {
+            canvas.drawColor(mBackgroundColor);
+            canvas.drawBitmap(mFrameBitmap, 0, 0, mMaskPaint);
+        } else {
+            canvas.drawBitmap(mFrameBitmap, 0, 0, null);
+        }
+    }
+
+    /* presents part of the last frame rendered */
+    public void drawFrame(Canvas canvas, Rect area) {
+        canvas.save();
+        canvas.clipRect(area);
+        drawFrame(canvas);
+        canvas.restore();
+    }
+
+    /* forces the next frame to be drawn from scratch */
+    public void invalidate() {
+        mFrameDirty = true;
+    }
+
+    public void destroy() {
+        mGlyphAtlases.clear();
+        if (mFrameBitmap != null) {
+            mFrameBitmap.recycle();
+            mFrameBitmap = null;
+            mFrameCanvas = null;
+        }
+        mBackgroundBitmap = null;
+        for (Bitmap bitmap : mBackgroundBitmaps.values()) {
+            bitmap.recycle();
+        }
+        mBackgroundBitmaps.clear();
+        mState = null;
+    }
+
+    /* bytes held by the background, frame, and glyph atlas bitmaps */
+    int getBitmapByteCount() {
+        int result = mGlyphAtlases.getByteCount();
+        for (Bitmap bitmap : mBackgroundBitmaps.values()) {
+            result += bitmap.getByteCount();
+        }
+        if (mFrameBitmap != null) {
+            result += mFrameBitmap.getByteCount();
+        }
+        return result;
+    }
+
+    private Bitmap.Config getFrameBitmapConfig() {
+        return mAlphaMasks ? Bitmap.Config.ALPHA_8 : Bitmap.Config.ARGB_8888;
+    }
+
+    /*
+     * The background is opaque, but the LCD theme's faint segments are
+     * too subtle to survive five or six bits per channel.
+     */
+    private Bitmap.Config getBackgroundBitmapConfig() {
+        if (mAlphaMasks) {
+            return Bitmap.Config.ALPHA_8;
+        }
+        if (mThemeMode == Utility.LEDWatchThemeMode.LCD) {
+            return Bitmap.Config.ARGB_8888;
+        }
+        return Bitmap.Config.RGB_565;
+    }
+
+    private void createFrameBitmap(int width, int height) {
+        Bitmap.Config config = getFrameBitmapConfig();
+        if (mFrameBitmap != null && mFrameBitmap.getWidth() == width && mFrameBitmap.getHeight() == height &&
+                mFrameBitmap.getConfig() == config) {
+            return;
+        }
+        if (mFrameBitmap != null) {
+            mFrameBitmap.recycle();
+        }
+        mFrameBitmap = Bitmap.createBitmap(width, height, config);
+        mFrameCanvas = new Canvas(mFrameBitmap);
+        mFrameDirty = true;
+    }
+
+    // END FRAME
+
+    private int getBackgroundColorInt() {
+        if (mAmbient) {
+            return Color.BLACK;
+        }
+        switch (mThemeMode) {
+            case LED:
+            case VINTAGE_LED:
+                return Color.BLACK;
+            default:
+                return getThemeColorInt();
+        }
+    }
+
+    private int getForegroundColorInt() {
+        if (mAmbient) {
+            return Color.WHITE;
+        }
+        switch (mThemeMode) {
+            case LCD:
+                return Color.BLACK;
+            default:
+                return getThemeColorInt();
+        }
+    }
+
+    /* returns color to use as background in LCD mode, or foreground in other modes */
+    private int getThemeColorInt() {
+        if (mCustomColor != 0) {
+            return mPaletteCache.get(mThemeMode, mCustomColor).getThemeColor();
+        }
+        return ThemeColors.getThemeColor(mThemeMode, mThemeColor);
+    }
+
+    /* returns alpha level (0 to 255) for faint segments */
+    private int getFaintAlpha() {
+        if (mCustomColor != 0 && !mAmbient) {
+            return mPaletteCache.get(mThemeMode, mCustomColor).getFaintAlpha();
+        }
+        return ThemeColors.getFaintAlpha(mThemeMode, mThemeColor, mAmbient);
+    }
+
+    private int getFaintForegroundColorInt() {
+        if (mLowBitAmbient) {
+            return Color.BLACK;
+        }
+        int result = getForegroundColorInt();
+        result = result & 0x00ffffff;
+        int alpha = getFaintAlpha();
+        result = result | ((alpha & 0xff) << 24);
+        return result;
+    }
+
+    /* size of day, date, battery, and seconds, as multiple of text size of time of day display */
+    private float getSmallerTextSizeRatio() {
+        switch (mThemeMode) {
+            case LED:
+            case LCD:
+                return 0.5f;
+            case VINTAGE_LED:
+                return 0.5f;
+            default:
+                return 0.5f;
+        }
+    }
+
+    /* letter spacing for time of day, as integer number of spaces */
+    private int getLetterSpacing() {
+        switch (mThemeMode) {
+            case LED:
+            case LCD:
+                return 0;
+            case VINTAGE_LED:
+                return 2;
+            default:
+                return 0;
+        }
+    }
+
+    /* letter spacing for day, date, battery, and seconds, as integer number of spaces */
+    private int getLetterSpacing2() {
+        switch (mThemeMode) {
+            case LED:
+            case LCD:
+                return 0;
+            case VINTAGE_LED:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    /* spacing between top (or bottom) line of text and time of day, as multiple of text size */
+    private float getLineSpacingRatio() {
+        switch (mThemeMode) {
+            case LED:
+            case LCD:
+                return 0.25f;
+            case VINTAGE_LED:
+                return 1f;
+            default:
+                return 0.25f;
+        }
+    }
+
+    /* Vintage LED has a full 7-segment where the colon is, for verisimilitude */
+    private boolean hasFullWidthColon() {
+        switch (mThemeMode) {
+            case VINTAGE_LED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /* Could be '-'. */
+    private char colonCharacter() {
+        switch (mThemeMode) {
+            case VINTAGE_LED:
+                return ':';
+            default:
+                return ':';
+        }
+    }
+
+    private String topLeftSegments() {
+        /* 14-segment */
+        return "~~~";
+    }
+
+    private String topRightSegments() {
+        return "888";
+    }
+
+    private String bottomLeftSegments() {
+        /* 14-segment */
+        if (mThemeMode != Utility.LEDWatchThemeMode.VINTAGE_LED) {
+            return "1~~~";
+        }
+        return "~~~~";
+    }
+
+    private String bottomRightSegments() {
+        if (mThemeMode != Utility.LEDWatchThemeMode.VINTAGE_LED) {
+            return "888";
+        }
+        return "88";
+    }
+
+    private String leftSegments() {
+        return mIs24Hour ? "88" : "18";
+    }
+
+    private String middleSegments() {
+        return "" + colonCharacter();
+    }
+
+    private String rightSegments() {
+        return "88";
+    }
+
+    private float textSkewX() {
+        switch (mThemeMode) {
+            case VINTAGE_LED:
+                return 0f;
+            default:
+                /* removes most of the italic skew, we want some but more subtle */
+                return 0.04f;
+        }
+    }
+
+    private boolean hasFaintSegments() {
+        switch (mThemeMode) {
+            case LCD:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private void updateProperties() {
+        mAlphaMasks = mAmbient;
+        updateThemeBasedProperties();
+        updateColors();
+        updateTypefaces();
+        updateTextPaintProperties();
+        updateSizeBasedProperties();
+        updateGlyphAtlases();
+    }
+
+    private void updateGlyphAtlases() {
+        String timeGlyphs = GLYPHS_SEVEN_SEGMENT + colonCharacter();
+        mGlyphAtlases.begin();
+        mAtlasMiddle = getGlyphAtlas(mTextPaintMiddle, timeGlyphs);
+        mAtlasLeft = getGlyphAtlas(mTextPaintLeft, timeGlyphs);
+        mAtlasRight = getGlyphAtlas(mTextPaintRight, timeGlyphs);
+        mAtlasTopLeft = getGlyphAtlas(mTextPaintTopLeft, GLYPHS_FOURTEEN_SEGMENT);
+        mAtlasTopRight = getGlyphAtlas(mTextPaintTopRight, GLYPHS_SEVEN_SEGMENT);
+        mAtlasBottomLeft = getGlyphAtlas(mTextPaintBottomLeft, GLYPHS_FOURTEEN_SEGMENT);
+        mAtlasBottomRight = getGlyphAtlas(mTextPaintBottomRight, GLYPHS_SEVEN_SEGMENT);
+        mAtlasBottomRight2 = getGlyphAtlas(mTextPaintBottomRight2, GLYPHS_SIXTHS_OF_A_PIE);
+        mAtlasAmPm = getGlyphAtlas(mTextPaintAmPm, GLYPHS_AM_PM);
+        mGlyphAtlases.end();
+    }
+
+    private GlyphAtlas getGlyphAtlas(Paint paint, String glyphs) {
+        return mGlyphAtlases.get(paint, mShadowRadius, mShadowDx, mShadowDy, mShadowColor, glyphs, mAlphaMasks);
+    }
+
+    private void updateThemeBasedProperties() {
+        Resources resources = mContext.getResources();
+
+        mLetterSpacing = getLetterSpacing();
+        mLetterSpacing2 = getLetterSpacing2();
+        mTextLeft.setLetterSpacing(mLetterSpacing);
+        mTextRight.setLetterSpacing(mLetterSpacing);
+        mTextTopLeft.setLetterSpacing(mLetterSpacing2);
+        mTextTopRight.setLetterSpacing(mLetterSpacing2);
+        mTextBottomLeft.setLetterSpacing(mLetterSpacing2);
+        mTextBottomRight.setLetterSpacing(mLetterSpacing2);
+        mTextMiddle.clear().append(colonCharacter());
+        mFaintAlpha = getFaintAlpha();
+        mSmallerTextSizeRatio = getSmallerTextSizeRatio();
+    }
+
+    private void updateColors() {
+        mForegroundColor = getForegroundColorInt();
+        mBackgroundColor = getBackgroundColorInt();
+        mFaintForegroundColor = getFaintForegroundColorInt();
+        mBackgroundPaint = new Paint();
+        mBackgroundPaint.setColor(mBackgroundColor);
+        mMaskPaint.setColor(mForegroundColor);
+    }
+
+    private void updateTypefaces() {
+        mSevenSegmentTypeface = mTypefaceRegistry.get(mFont.getFilename(Utility.DSEGFontSegments.SEVEN));
+        mFourteenSegmentTypeface = mTypefaceRegistry.get(mFont.getFilename(Utility.DSEGFontSegments.FOURTEEN));
+    }
+
+    /**
+     * Fills the text buffers from a state, marking fields whose
+     * values changed as dirty.
+     */
+    private void updateFields(WatchFaceState state) {
+        // time of day
+        mTextLeft.clear();
+        if (state.is24Hour()) {
+            mTextLeft.appendTwoDigits(state.getHour());
+            mDamageTracker.update(FIELD_HOURS, 100 + state.getHour());
+            mDamageTracker.update(FIELD_AM_PM, -1);
+        } else {
+            // replace leading zero with space (all-segments-off)
+            mTextLeft.appendTwoDigitsBlankPadded(state.getHour());
+            mDamageTracker.update(FIELD_HOURS, state.getHour());
+            mDamageTracker.update(FIELD_AM_PM, state.isPM() ? 1 : 0);
+        }
+        mTextRight.clear().appendTwoDigits(state.getMinute());
+        mDamageTracker.update(FIELD_MINUTES, state.getMinute());
+
+        mDamageTracker.update(FIELD_COLON, state.isColonVisible() ? 1 : 0);
+
+        if (mShowDayOfWeek) {
+            mTextTopLeft.clear().append(mWeekdayLabels.get(state.getDayOfWeek()));
+            mDamageTracker.update(FIELD_DAY_OF_WEEK, state.getDayOfWeek());
+        }
+
+        if (mShowDayOfMonth) {
+            mTextTopRight.clear().append(SegmentText.BLANK).appendTwoDigitsBlankPadded(state.getDayOfMonth());
+            mDamageTracker.update(FIELD_DAY_OF_MONTH, state.getDayOfMonth());
+        }
+
+        if (mShowBatteryLevel) {
+            mDamageTracker.update(FIELD_BATTERY, state.getBatteryPercentage());
+            /* battery text only changes when the displayed percentage does */
+            if (mDamageTracker.isDirty(FIELD_BATTERY)) {
+                mTextBottomLeft.clear().appendBatteryPercentage(
+                        state.getBatteryPercentage(),
+                        mThemeMode == Utility.LEDWatchThemeMode.VINTAGE_LED,
+                        m100SansPercent
+                );
+            }
+        }
+
+        // seconds
+        if (mShowSeconds) {
+            if (mAmbient) {
+                if (showSecondsPie()) {
+                    /* the pie only moves as often as it can be redrawn */
+                    int sixths = state.getSecond() / mAmbientSecondsStep * mAmbientSecondsStep / 10;
+                    mTextBottomRight2.clear().append((char) (0xf000 + sixths));
+                    mDamageTracker.update(FIELD_SECONDS_PIE, sixths);
+                }
+            } else {
+                mTextBottomRight.clear().append(SegmentText.BLANK).appendTwoDigits(state.getSecond());
+                mDamageTracker.update(FIELD_SECONDS, state.getSecond());
+            }
+        }
+    }
+
+    /**
+     * Draws the fields, or if an area is specified, only the fields
+     * that intersect it.
+     */
+    private void drawFields(Canvas canvas, Rect area) {
+        if (!mState.is24Hour() && isFieldInArea(FIELD_AM_PM, area)) {
+            if (mState.isPM()) {
+                drawText(canvas, PM_CHARS, 1, mXOffsetAmPm, mYOffsetPm, mTextPaintAmPm, mAtlasAmPm);
+            } else {
+                drawText(canvas, AM_CHARS, 1, mXOffsetAmPm, mYOffsetAm, mTextPaintAmPm, mAtlasAmPm);
+            }
+        }
+        if (isFieldInArea(FIELD_HOURS, area)) {
+            drawText(canvas, mTextLeft, mXOffsetLeft, mYOffsetMiddle, mTextPaintLeft, mAtlasLeft);
+        }
+        if (isFieldInArea(FIELD_MINUTES, area)) {
+            drawText(canvas, mTextRight, mXOffsetRight, mYOffsetMiddle, mTextPaintRight, mAtlasRight);
+        }
+        if (mState.isColonVisible() && isFieldInArea(FIELD_COLON, area)) {
+            drawText(canvas, mTextMiddle, mXOffsetMiddle, mYOffsetMiddle, mTextPaintMiddle, mAtlasMiddle);
+        }
+        if (mShowDayOfWeek && isFieldInArea(FIELD_DAY_OF_WEEK, area)) {
+            drawText(canvas, mTextTopLeft, mXOffsetTopLeft, mYOffsetTop, mTextPaintTopLeft, mAtlasTopLeft);
+        }
+        if (mShowDayOfMonth && isFieldInArea(FIELD_DAY_OF_MONTH, area)) {
+            drawText(canvas, mTextTopRight, mXOffsetTopRight, mYOffsetTop, mTextPaintTopRight, mAtlasTopRight);
+        }
+        if (mShowBatteryLevel && isFieldInArea(FIELD_BATTERY, area)) {
+            drawText(canvas, mTextBottomLeft, mXOffsetBottomLeft, mYOffsetBottom, mTextPaintBottomLeft, mAtlasBottomLeft);
+        }
+        if (mShowSeconds) {
+            if (mAmbient) {
+                if (showSecondsPie() && isFieldInArea(FIELD_SECONDS_PIE, area)) {
+                    drawText(canvas, mTextBottomRight2, mXOffsetBottomRight2, mYOffsetBottom, mTextPaintBottomRight2, mAtlasBottomRight2);
+                }
+            } else {
+                if (isFieldInArea(FIELD_SECONDS, area)) {
+                    drawText(canvas, mTextBottomRight, mXOffsetBottomRight, mYOffsetBottom, mTextPaintBottomRight, mAtlasBottomRight);
+                }
+            }
+        }
+    }
+
+    private boolean isFieldInArea(int field, Rect area) {
+        return area == null || mDamageTracker.intersects(field, area);
+    }
+
+    private void drawText(Canvas canvas, SegmentText text, float x, float y, Paint paint, GlyphAtlas atlas) {
+        drawText(canvas, text.getChars(), text.length(), x, y, paint, atlas);
+    }
+
+    private void drawText(Canvas canvas, char[] text, int count, float x, float y, Paint paint, GlyphAtlas atlas) {
+        if (atlas != null && atlas.drawText(canvas, text, count, x, y, paint.getTextAlign())) {
+            return;
+        }
+        canvas.drawText(text, 0, count, x, y, paint);
+    }
+
+    private void updateSizeBasedProperties() {
+        LayoutSolver.Key key = mLayoutKey;
+        key.themeMode = mThemeMode;
+        key.ambient = mAmbient;
+        key.is24Hour = mIs24Hour;
+        key.round = mIsRound;
+        key.demoTimeMode = mDemoTimeMode;
+        key.surfaceWidth = mSurfaceWidth;
+        key.surfaceHeight = mSurfaceHeight;
+        key.pixelDensity = mPixelDensity;
+        key.sevenSegmentFont = mFont.getFilename(Utility.DSEGFontSegments.SEVEN);
+        key.fourteenSegmentFont = mFont.getFilename(Utility.DSEGFontSegments.FOURTEEN);
+        key.sixthsOfAPieFont = SIXTHS_OF_A_PIE_FONT_FILENAME;
+        key.amPmFont = PaintMeasurer.SANS_SERIF;
+        key.textSkewX = textSkewX();
+        key.letterSpacing = mLetterSpacing;
+        key.letterSpacing2 = mLetterSpacing2;
+        key.smallerTextSizeRatio = mSmallerTextSizeRatio;
+        key.lineSpacingRatio = getLineSpacingRatio();
+        key.fullWidthColon = hasFullWidthColon();
+        key.leftSegments = leftSegments();
+        key.middleSegments = middleSegments();
+        key.rightSegments = rightSegments();
+        key.topLeftSegments = topLeftSegments();
+        key.topRightSegments = topRightSegments();
+        key.bottomLeftSegments = bottomLeftSegments();
+        key.bottomRightSegments = bottomRightSegments();
+        key.shadowRadius = mShadowRadius;
+        key.shadowDx = mShadowDx;
+        key.shadowDy = mShadowDy;
+        applyLayout(mLayoutSolver.solve(key));
+    }
+
+    private void applyLayout(LayoutSpec layout) {
+        mLayout = layout;
+        mTextPaintMiddle.setTextSize(layout.getTextSize());
+        mTextPaintLeft.setTextSize(layout.getTextSize());
+        mTextPaintRight.setTextSize(layout.getTextSize());
+        mTextPaintAmPm.setTextSize(layout.getTextSizeAmPm());
+        mTextPaintTopLeft.setTextSize(layout.getSmallerTextSize());
+        mTextPaintTopRight.setTextSize(layout.getSmallerTextSize());
+        mTextPaintBottomLeft.setTextSize(layout.getSmallerTextSize());
+        mTextPaintBottomRight.setTextSize(layout.getSmallerTextSize());
+        mTextPaintBottomRight2.setTextSize(layout.getSmallerTextSize());
+
+        mXOffsetLeft = layout.getXOffsetLeft();
+        mXOffsetMiddle = layout.getXOffsetMiddle();
+        mXOffsetRight = layout.getXOffsetRight();
+        mXOffsetAmPm = layout.getXOffsetAmPm();
+        mXOffsetTopLeft = layout.getXOffsetTopLeft();
+        mXOffsetTopRight = layout.getXOffsetTopRight();
+        mXOffsetBottomLeft = layout.getXOffsetBottomLeft();
+        mXOffsetBottomRight = layout.getXOffsetBottomRight();
+        mXOffsetBottomRight2 = layout.getXOffsetBottomRight2();
+
+        mYOffsetTop = layout.getYOffsetTop();
+        mYOffsetMiddle = layout.getYOffsetMiddle();
+        mYOffsetBottom = layout.getYOffsetBottom();
+        mYOffsetAm = layout.getYOffsetAm();
+        mYOffsetPm = layout.getYOffsetPm();
+        mYOffsetTopMiddle = layout.getYOffsetTopMiddle();
+        mYOffsetMiddleBottom = layout.getYOffsetMiddleBottom();
+
+        for (int field = 0; field < FIELD_COUNT; field += 1) {
+            mDamageTracker.setBounds(field,
+                    layout.getFieldLeft(field), layout.getFieldTop(field),
+                    layout.getFieldRight(field), layout.getFieldBottom(field));
+        }
+
+        updateHitTestIndex(layout);
+    }
+
+    /* bands between the rows of fields, split halfway between each row's fields */
+    private void updateHitTestIndex(LayoutSpec layout) {
+        float width = mSurfaceWidth;
+        float nameTop = Math.round(mSurfaceHeight * 0.9f);
+        float topSplit = (layout.getFieldRight(FIELD_DAY_OF_WEEK) + layout.getFieldLeft(FIELD_DAY_OF_MONTH)) / 2;
+        float middleSplit = (layout.getFieldRight(FIELD_HOURS) + layout.getFieldLeft(FIELD_MINUTES)) / 2;
+        float bottomSplit = (layout.getFieldRight(FIELD_BATTERY) + layout.getFieldLeft(FIELD_SECONDS)) / 2;
+
+        mHitTestIndex.reset(mSurfaceWidth, mSurfaceHeight);
+        mHitTestIndex.fill(0, 0, topSplit, mYOffsetTopMiddle, Utility.Zone.DAY_OF_WEEK);
+        mHitTestIndex.fill(topSplit, 0, width, mYOffsetTopMiddle, Utility.Zone.DAY_OF_MONTH);
+        mHitTestIndex.fill(0, mYOffsetTopMiddle, middleSplit, mYOffsetMiddleBottom, Utility.Zone.HOURS);
+        mHitTestIndex.fill(middleSplit, mYOffsetTopMiddle, width, mYOffsetMiddleBottom, Utility.Zone.MINUTES);
+        mHitTestIndex.fill(0, mYOffsetMiddleBottom, bottomSplit, nameTop, Utility.Zone.BATTERY);
+        mHitTestIndex.fill(bottomSplit, mYOffsetMiddleBottom, width, nameTop, Utility.Zone.SECONDS);
+        mHitTestIndex.fill(0, nameTop, width, mSurfaceHeight, Utility.Zone.WATCH_FACE_NAME);
+    }
+
+    private void updateTextPaintProperties() {
+        mTextPaintMiddle.setTextAlign(Paint.Align.CENTER);
+        mTextPaintLeft.setTextAlign(Paint.Align.LEFT);
+        mTextPaintRight.setTextAlign(Paint.Align.RIGHT);
+        mTextPaintTopLeft.setTextAlign(Paint.Align.LEFT);
+        mTextPaintTopRight.setTextAlign(Paint.Align.RIGHT);
+        mTextPaintBottomLeft.setTextAlign(Paint.Align.LEFT);
+        mTextPaintBottomRight.setTextAlign(Paint.Align.RIGHT);
+        mTextPaintBottomRight2.setTextAlign(Paint.Align.RIGHT);
+        mTextPaintAmPm.setTextAlign(Paint.Align.LEFT);
+
+        mTextPaintMiddle.setTypeface(mSevenSegmentTypeface);
+        mTextPaintLeft.setTypeface(mSevenSegmentTypeface);
+        mTextPaintRight.setTypeface(mSevenSegmentTypeface);
+        mTextPaintTopLeft.setTypeface(mFourteenSegmentTypeface);
+        mTextPaintTopRight.setTypeface(mSevenSegmentTypeface);
+        mTextPaintBottomLeft.setTypeface(mFourteenSegmentTypeface);
+        mTextPaintBottomRight.setTypeface(mSevenSegmentTypeface);
+        mTextPaintBottomRight2.setTypeface(mSixthsOfAPieTypeface);
+        mTextPaintAmPm.setTypeface(AM_PM_TYPEFACE);
+
+        setAntiAlias(isAntiAlias());
+        setColor(mForegroundColor);
+        setTextSkewX(textSkewX());
+        mShadowRadius = 0;
+        mShadowDx = 0;
+        mShadowDy = 0;
+        mShadowColor = 0;
+        if (mThemeMode == Utility.LEDWatchThemeMode.LCD && !mAmbient) {
+            float radius = dpToPixels(2);
+            float dx     = dpToPixels(2);
+            float dy     = dpToPixels(4);
+            mShadowRadius = radius;
+            mShadowDx = dx;
+            mShadowDy = dy;
+            mShadowColor = (mForegroundColor & 0xffffff) | 0x33000000;
+            setShadowLayer(radius, dx, dy, mShadowColor);
+        } else if (mThemeMode == Utility.LEDWatchThemeMode.VINTAGE_LED && !mAmbient) {
+            float radius = dpToPixels(6);
+            mShadowRadius = radius;
+            mShadowColor = (mForegroundColor & 0xffffff) | 0xff000000;
+            setShadowLayer(radius, 0, 0, mShadowColor);
+        } else {
+            clearShadowLayer();
+        }
+
+        setAlpha(255);
+    }
+
+    private float dpToPixels(float dp) {
+        if (mDemoTimeMode) {
+            return dp * mPixelDensity * Math.min(mSurfaceWidth, mSurfaceHeight) / 320f;
+        }
+        return dp * mPixelDensity;
+    }
+    private float dpToPixels(int dp) {
+        return dpToPixels((float) dp);
+    }
+
+    /*
+     * Ambient text is drawn with hard edges even on full-color screens,
+     * so the masks are as good as one bit deep and blit pixel-exact.
+     */
+    private boolean isAntiAlias() {
+        return !mLowBitAmbient && !mAmbient;
+    }
+
+    private void setAntiAlias(boolean flag) {
+        mTextPaintMiddle.setAntiAlias(flag);
+        mTextPaintLeft.setAntiAlias(flag);
+        mTextPaintRight.setAntiAlias(flag);
+        mTextPaintTopLeft.setAntiAlias(flag);
+        mTextPaintTopRight.setAntiAlias(flag);
+        mTextPaintBottomLeft.setAntiAlias(flag);
+        mTextPaintBottomRight.setAntiAlias(flag);
+        mTextPaintBottomRight2.setAntiAlias(flag);
+        mTextPaintAmPm.setAntiAlias(flag);
+    }
+
+    private void setColor(int color) {
+        mTextPaintMiddle.setColor(color);
+        mTextPaintLeft.setColor(color);
+        mTextPaintRight.setColor(color);
+        mTextPaintTopLeft.setColor(color);
+        mTextPaintTopRight.setColor(color);
+        mTextPaintBottomLeft.setColor(color);
+        mTextPaintBottomRight.setColor(color);
+        mTextPaintBottomRight2.setColor(color);
+        mTextPaintAmPm.setColor(color);
+    }
+
+    private void setAlpha(int alpha) {
+        mTextPaintMiddle.setAlpha(alpha);
+        mTextPaintLeft.setAlpha(alpha);
+        mTextPaintRight.setAlpha(alpha);
+        mTextPaintTopLeft.setAlpha(alpha);
+        mTextPaintTopRight.setAlpha(alpha);
+        mTextPaintBottomLeft.setAlpha(alpha);
+        mTextPaintBottomRight.setAlpha(alpha);
+        mTextPaintBottomRight2.setAlpha(alpha);
+        mTextPaintAmPm.setAlpha(alpha);
+    }
+
+    private void setTextSkewX(float skew) {
+        mTextPaintMiddle.setTextSkewX(skew);
+        mTextPaintLeft.setTextSkewX(skew);
+        mTextPaintRight.setTextSkewX(skew);
+        mTextPaintTopLeft.setTextSkewX(skew);
+        mTextPaintTopRight.setTextSkewX(skew);
+        mTextPaintBottomLeft.setTextSkewX(skew);
+        mTextPaintBottomRight.setTextSkewX(skew);
+        mTextPaintBottomRight2.setTextSkewX(skew);
+        /* not applicable to upright mTextPaintAmPm */
+    }
+
+    private void setShadowLayer(float radius, float dx, float dy, int shadowColor) {
+        mTextPaintMiddle.setShadowLayer(radius, dx, dy, shadowColor);
+        mTextPaintLeft.setShadowLayer(radius, dx, dy, shadowColor);
+        mTextPaintRight.setShadowLayer(radius, dx, dy, shadowColor);
+        mTextPaintTopLeft.setShadowLayer(radius, dx, dy, shadowColor);
+        mTextPaintTopRight.setShadowLayer(radius, dx, dy, shadowColor);
+        mTextPaintBottomLeft.setShadowLayer(radius, dx, dy, shadowColor);
+        mTextPaintBottomRight.setShadowLayer(radius, dx, dy, shadowColor);
+        mTextPaintBottomRight2.setShadowLayer(radius, dx, dy, shadowColor);
+        mTextPaintAmPm.setShadowLayer(radius, dx, dy, shadowColor);
+    }
+
+    private void clearShadowLayer() {
+        mTextPaintMiddle.clearShadowLayer();
+        mTextPaintLeft.clearShadowLayer();
+        mTextPaintRight.clearShadowLayer();
+        mTextPaintTopLeft.clearShadowLayer();
+        mTextPaintTopRight.clearShadowLayer();
+        mTextPaintBottomLeft.clearShadowLayer();
+        mTextPaintBottomRight.clearShadowLayer();
+        mTextPaintBottomRight2.clearShadowLayer();
+        mTextPaintAmPm.clearShadowLayer();
+    }
+
+    private void createBackgroundBitmap(int width, int height) {
+        if (mBackgroundBitmap != null) {
+            return;
+        }
+        BackgroundKey key = new BackgroundKey(mLayout, mForegroundColor, mBackgroundColor, mFaintAlpha,
+                mLowBitAmbient, mShowVersionNumber, showFaintSecondsPie());
+        mBackgroundBitmap = mBackgroundBitmaps.get(key);
+        if (mBackgroundBitmap == null) {
+            mBackgroundBitmap = Bitmap.createBitmap(width, height, getBackgroundBitmapConfig());
+            Canvas backgroundCanvas = new Canvas(mBackgroundBitmap);
+            if (!mAlphaMasks) {
+                backgroundCanvas.drawRect(0, 0, width, height, mBackgroundPaint);
+            }
+            drawFaintSegments(backgroundCanvas);
+            drawWatchFaceName(backgroundCanvas);
+            mBackgroundBitmaps.put(key, mBackgroundBitmap);
+            mBackgroundsDrawn += 1;
+        }
+        if (mAlphaMasks) {
+            /* in ambient mode memory matters more than switching colors */
+            trimBackgroundBitmaps();
+        }
+    }
+
+    /* drops every cached background but the current one */
+    private void trimBackgroundBitmaps() {
+        Iterator<Bitmap> i = mBackgroundBitmaps.values().iterator();
+        while (i.hasNext()) {
+            Bitmap bitmap = i.next();
+            if (bitmap != mBackgroundBitmap) {
+                bitmap.recycle();
+                i.remove();
+            }
+        }
+    }
+
+    /* backgrounds drawn rather than found in the cache, for testing */
+    int getBackgroundsDrawn() {
+        return mBackgroundsDrawn;
+    }
+
+    /*
+     * Everything the background depends on.  The layout covers the
+     * theme, fonts, clock format, ambient mode, and surface; layouts
+     * are shared by the solver, so identity is enough.
+     */
+    private static final class BackgroundKey {
+        private final LayoutSpec layout;
+        private final int foregroundColor;
+        private final int backgroundColor;
+        private final int faintAlpha;
+        private final boolean lowBitAmbient;
+        private final boolean showVersionNumber;
+        private final boolean showFaintSecondsPie;
+
+        BackgroundKey(LayoutSpec layout, int foregroundColor, int backgroundColor, int faintAlpha,
+                      boolean lowBitAmbient, boolean showVersionNumber, boolean showFaintSecondsPie) {
+            this.layout = layout;
+            this.foregroundColor = foregroundColor;
+            this.backgroundColor = backgroundColor;
+            this.faintAlpha = faintAlpha;
+            this.lowBitAmbient = lowBitAmbient;
+            this.showVersionNumber = showVersionNumber;
+            this.showFaintSecondsPie = showFaintSecondsPie;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BackgroundKey)) {
+                return false;
+            }
+            BackgroundKey k = (BackgroundKey) o;
+            return layout == k.layout &&
+                    foregroundColor == k.foregroundColor &&
+                    backgroundColor == k.backgroundColor &&
+                    faintAlpha == k.faintAlpha &&
+                    lowBitAmbient == k.lowBitAmbient &&
+                    showVersionNumber == k.showVersionNumber &&
+                    showFaintSecondsPie == k.showFaintSecondsPie;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = System.identityHashCode(layout);
+            h = 31 * h + foregroundColor;
+            h = 31 * h + backgroundColor;
+            h = 31 * h + faintAlpha;
+            h = 31 * h + (lowBitAmbient ? 1 : 0);
+            h = 31 * h + (showVersionNumber ? 1 : 0);
+            h = 31 * h + (showFaintSecondsPie ? 1 : 0);
+            return h;
+        }
+    }
+
+    private void drawWatchFaceName(Canvas canvas) {
+        if (mShowVersionNumber) {
+            drawWatchFaceVersionText(canvas);
+        } else {
+            drawWatchFaceNameText(canvas);
+        }
+    }
+
+    private void drawWatchFaceVersionText(Canvas canvas) {
+        try {
+            PackageInfo pInfo = mContext.getPackageManager().getPackageInfo(mContext.getPackageName(), 0);
+            String versionNameText = pInfo.versionName;
+            String versionCodeText = "(" + pInfo.versionCode + ")";
+            drawWatchFaceText(canvas, versionNameText + " " + versionCodeText);
+        } catch (Exception e) {
+            // do nothing
+        }
+    }
+
+    private void drawWatchFaceNameText(Canvas canvas) {
+        String watchFaceName = "LED WATCH 3000";
+        drawWatchFaceText(canvas, watchFaceName);
+    }
+
+    private void drawWatchFaceText(Canvas canvas, String text) {
+        Paint textPaint = new Paint();
+        float fontSize = mContext.getResources().getDimension(R.dimen.watch_face_name_font_size);
+        float margin   = mContext.getResources().getDimension(R.dimen.watch_face_name_margin);
+        textPaint.setTextSize(fontSize);
+        textPaint.setAntiAlias(isAntiAlias());
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        textPaint.setTypeface(mTextTypeface);
+        textPaint.setColor(mForegroundColor);
+        switch (mThemeMode) {
+            case LED:
+            case VINTAGE_LED:
+                textPaint.setAlpha(getFaintAlpha() * 2);
+                break;
+            case LCD:
+                textPaint.setAlpha(102);
+                break;
+        }
+
+        float inset = fontSize * 0.3f;
+        if (mIsRound) {
+            Path path = new Path();
+            float xLeft = margin;
+            float xRight = mSurfaceWidth - margin;
+            float yTop = margin;
+            float yBottom = mSurfaceHeight - margin;
+            float startAngle = 180f;
+            float sweepAngle = -180f;
+            path.addArc(xLeft, yTop, xRight, yBottom, startAngle, sweepAngle);
+            canvas.drawTextOnPath(text, path, 0f, 0f, textPaint);
+        } else {
+            float x = mSurfaceWidth / 2;
+            float y = mSurfaceHeight - margin;
+            canvas.drawText(text, x, y, textPaint);
+        }
+    }
+
+    private void drawFaintSegments(Canvas backgroundCanvas) {
+        if (!hasFaintSegments()) {
+            return;
+        }
+        if (mLowBitAmbient) {
+            return;
+        }
+        if (mFaintAlpha <= 0) {
+            return;
+        }
+
+        String allSegmentsOnLeft = leftSegments();
+        String allSegmentsOnRight = rightSegments();
+        String allSegmentsOnTopLeft = topLeftSegments();
+        String allSegmentsOnTopRight = topRightSegments();
+        String allSegmentsOnBottomLeft = bottomLeftSegments();
+        String allSegmentsOnBottomRight = bottomRightSegments();
+
+        allSegmentsOnLeft = LayoutSolver.addLetterSpacing(allSegmentsOnLeft, mLetterSpacing);
+        allSegmentsOnRight = LayoutSolver.addLetterSpacing(allSegmentsOnRight, mLetterSpacing);
+        allSegmentsOnTopLeft = LayoutSolver.addLetterSpacing(allSegmentsOnTopLeft, mLetterSpacing2);
+        allSegmentsOnTopRight = LayoutSolver.addLetterSpacing(allSegmentsOnTopRight, mLetterSpacing2);
+        allSegmentsOnBottomLeft = LayoutSolver.addLetterSpacing(allSegmentsOnBottomLeft, mLetterSpacing2);
+        allSegmentsOnBottomRight = LayoutSolver.addLetterSpacing(allSegmentsOnBottomRight, mLetterSpacing2);
+
+        if (showFaintSecondsPie()) {
+            allSegmentsOnBottomRight = "\uf006";
+        }
+
+        setAntiAlias(isAntiAlias());
+        setColor(mForegroundColor);
+        setAlpha(mFaintAlpha);
+        clearShadowLayer();
+
+        backgroundCanvas.drawText(allSegmentsOnLeft, mXOffsetLeft, mYOffsetMiddle, mTextPaintLeft);
+        backgroundCanvas.drawText(allSegmentsOnRight, mXOffsetRight, mYOffsetMiddle, mTextPaintRight);
+        if (hasFullWidthColon()) {
+            backgroundCanvas.drawText("8", mXOffsetMiddle, mYOffsetMiddle, mTextPaintMiddle);
+            if (colonCharacter() == ':') {
+                backgroundCanvas.drawText(":", mXOffsetMiddle, mYOffsetMiddle, mTextPaintMiddle);
+            }
+        } else {
+            backgroundCanvas.drawText(":", mXOffsetMiddle, mYOffsetMiddle, mTextPaintMiddle);
+        }
+
+        backgroundCanvas.drawText(allSegmentsOnTopLeft, mXOffsetTopLeft, mYOffsetTop, mTextPaintTopLeft);
+        backgroundCanvas.drawText(allSegmentsOnTopRight, mXOffsetTopRight, mYOffsetTop, mTextPaintTopRight);
+        backgroundCanvas.drawText(allSegmentsOnBottomLeft, mXOffsetBottomLeft, mYOffsetBottom, mTextPaintBottomLeft);
+        if (showFaintSecondsPie()) {
+            backgroundCanvas.drawText(allSegmentsOnBottomRight, mXOffsetBottomRight2, mYOffsetBottom, mTextPaintBottomRight2);
+        } else if (!mAmbient) {
+            backgroundCanvas.drawText(allSegmentsOnBottomRight, mXOffsetBottomRight, mYOffsetBottom, mTextPaintBottomRight);
+        }
+        if (!mIs24Hour) {
+            backgroundCanvas.drawText("A", mXOffsetAmPm, mYOffsetAm, mTextPaintAmPm);
+            backgroundCanvas.drawText("P", mXOffsetAmPm, mYOffsetPm, mTextPaintAmPm);
+        }
+
+        updateTextPaintProperties();
+    }
+
+    /* onto the frame, which is a mask too in ambient mode */
+    private void drawBackground(Canvas canvas) {
+        if (mAlphaMasks) {
+            canvas.drawColor(0, PorterDuff.Mode.CLEAR);
+        }
+        if (mBackgroundBitmap != null) {
+            canvas.drawBitmap(mBackgroundBitmap, 0, 0, null);
+        } else if (!mAlphaMasks) {
+            canvas.drawRect(0, 0, mSurfaceWidth, mSurfaceHeight, mBackgroundPaint);
+        }
+    }
+}
@@ -1,15 +1,240 @@
 package com.webonastick.watchface.ledwatch;
 
-import androidx.appcompat.app.AppCompatActivity;
+import android.app.Activity;
+import android.content.Context;
+import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.webonastick.ledwatch.R;
+import com.webonastick.watchface.AmbientRefresher;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lets the user pick the font for a theme mode, one row for each of
+ * its family, weight, style, and size, how the seconds pie refreshes
+ * in ambient mode, and a custom color from a grid of swatches below
+ * them.
+ * <p>
+ * This starts from the last theme mode saved; the first row shows the
+ * theme mode and switches to the next one.
+ * <p>
+ * Picks are saved straight to the watch face's preferences; the watch
+ * face notices and switches to them.  Swatch colors come from
+ * {@link SwatchGrid}, so binding a swatch only sets its background.
+ */
+public class LEDWatchFaceWearableConfigActivity extends Activity {
+    private static final int COLUMNS = 6;
+
+    /* rows above the swatches, each cycling through its values */
+    private static final int OPTION_THEME_MODE = 0;
+    private static final int OPTION_FONT_FAMILY = 1;
+    private static final int OPTION_FONT_WEIGHT = 2;
+    private static final int OPTION_FONT_STYLE = 3;
+    private static final int OPTION_FONT_SIZE = 4;
+    private static final int OPTION_AMBIENT_POLICY = 5;
+    private static final int OPTION_AMBIENT_GRANULARITY = 6;
+    private static final int OPTION_AMBIENT_WAKEUP = 7;
+    private static final int OPTIONS = 8;
 
-public class LEDWatchFaceWearableConfigActivity extends AppCompatActivity {
+    private static final int VIEW_TYPE_OPTION = 0;
+    private static final int VIEW_TYPE_SWATCH = 1;
+
+    private SharedPreferences mSharedPreferences;
+    private Utility.LEDWatchThemeMode mThemeMode;
+    private DSEGFont mFont;
+    private AmbientRefresher.Policy mAmbientPolicy;
+    private AmbientRefresher.Granularity mAmbientGranularity;
+    private boolean mAmbientWakeup;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_ledwatch_face_wearable_config);
+
+        mSharedPreferences = getSharedPreferences(getString(R.string.preference_file_key), Context.MODE_PRIVATE);
+        setThemeMode(getThemeMode());
+        mAmbientPolicy = AmbientRefresher.readPolicy(mSharedPreferences);
+        mAmbientGranularity = AmbientRefresher.readGranularity(mSharedPreferences);
+        mAmbientWakeup = AmbientRefresher.readWakeup(mSharedPreferences);
+
+        GridLayoutManager layoutManager = new GridLayoutManager(this, COLUMNS);
+        layoutManager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
+            @Override
+            public int getSpanSize(int position) {
+                return position < OPTIONS ? COLUMNS : 1;
+            }
+        });
+        RecyclerView options = findViewById(R.id.options);
+        options.setHasFixedSize(true);
+        options.setLayoutManager(layoutManager);
+        options.setAdapter(new OptionAdapter(getResources().getDimensionPixelSize(R.dimen.swatch_size)));
+    }
+
+    /* the last one saved, which may not have been written yet */
+    private Utility.LEDWatchThemeMode getThemeMode() {
+        Utility.LEDWatchThemeMode themeMode = Utility.LEDWatchThemeMode.findThemeModeNamed(
+                mSharedPreferences.getString(PreferenceStore.KEY_THEME_MODE, null));
+        return themeMode == null ? Utility.LEDWatchThemeMode.LED : themeMode;
+    }
+
+    /* only which theme mode the other rows and swatches apply to; the watch face's stays as it is */
+    private void setThemeMode(Utility.LEDWatchThemeMode themeMode) {
+        mThemeMode = themeMode;
+        mFont = PreferenceStore.readFont(new SharedPreferencesStorage(mSharedPreferences).read(), mThemeMode);
+    }
+
+    private void pick(int color) {
+        mSharedPreferences.edit()
+                .putString(PreferenceStore.customColorKey(mThemeMode), PreferenceStore.formatCustomColor(color))
+                .apply();
+        finish();
+    }
+
+    /* the next value of an option, saved right away */
+    private void pickNextOption(int option) {
+        switch (option) {
+            case OPTION_THEME_MODE:
+                setThemeMode(mThemeMode.nextThemeMode());
+                break;
+            case OPTION_FONT_FAMILY:
+                saveFont(mFont.withFamily(mFont.getFamily().nextFamily()));
+                break;
+            case OPTION_FONT_WEIGHT:
+                saveFont(mFont.withWeight(mFont.getWeight().nextWeight()));
+                break;
+            case OPTION_FONT_STYLE:
+                saveFont(mFont.withStyle(mFont.getStyle().nextStyle()));
+                break;
+            case OPTION_FONT_SIZE:
+                saveFont(mFont.withSize(mFont.getSize().nextSize()));
+                break;
+            case OPTION_AMBIENT_POLICY:
+                AmbientRefresher.Policy[] policies = AmbientRefresher.Policy.values();
+                mAmbientPolicy = policies[(mAmbientPolicy.ordinal() + 1) % policies.length];
+                mSharedPreferences.edit().putString(AmbientRefresher.KEY_POLICY, mAmbientPolicy.name()).apply();
+                break;
+            case OPTION_AMBIENT_GRANULARITY:
+                AmbientRefresher.Granularity[] granularities = AmbientRefresher.Granularity.values();
+                mAmbientGranularity = granularities[(mAmbientGranularity.ordinal() + 1) % granularities.length];
+                mSharedPreferences.edit()
+                        .putString(AmbientRefresher.KEY_GRANULARITY, mAmbientGranularity.name())
+                        .apply();
+                break;
+            case OPTION_AMBIENT_WAKEUP:
+                mAmbientWakeup = !mAmbientWakeup;
+                mSharedPreferences.edit().putBoolean(AmbientRefresher.KEY_WAKEUP, mAmbientWakeup).apply();
+                break;
+        }
+    }
+
+    private void saveFont(DSEGFont font) {
+        mFont = font;
+        SharedPreferences.Editor editor = mSharedPreferences.edit();
+        for (Map.Entry<String, String> entry : PreferenceStore.formatFont(mThemeMode, mFont).entrySet()) {
+            editor.putString(entry.getKey(), entry.getValue());
+        }
+        editor.apply();
+    }
+
+    private String getOptionText(int option) {
+        switch (option) {
+            case OPTION_THEME_MODE:
+                return getString(R.string.config_theme_mode, mThemeMode.resourceName);
+            case OPTION_FONT_FAMILY:
+                return getString(R.string.config_font_family, mFont.getFamily().getResourceName());
+            case OPTION_FONT_WEIGHT:
+                return getString(R.string.config_font_weight, mFont.getWeight().getResourceName());
+            case OPTION_FONT_STYLE:
+                return getString(R.string.config_font_style, mFont.getStyle().getResourceName());
+            case OPTION_FONT_SIZE:
+                return getString(R.string.config_font_size, mFont.getSize().getResourceName());
+            case OPTION_AMBIENT_POLICY:
+                return getString(R.string.config_ambient_policy, mAmbientPolicy.name().toLowerCase(Locale.US));
+            case OPTION_AMBIENT_GRANULARITY:
+                return getString(R.string.config_ambient_granularity, mAmbientGranularity.seconds);
+            default:
+                return getString(mAmbientWakeup ? R.string.config_ambient_wakeup_on : R.string.config_ambient_wakeup_off);
+        }
+    }
+
+    private static class OptionViewHolder extends RecyclerView.ViewHolder {
+        int color;
+
+        OptionViewHolder(View view) {
+            super(view);
+        }
+    }
+
+    /* the options, then the swatches */
+    private class OptionAdapter extends RecyclerView.Adapter<OptionViewHolder> {
+        private final int mSize;
+
+        OptionAdapter(int size) {
+            mSize = size;
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return position < OPTIONS ? VIEW_TYPE_OPTION : VIEW_TYPE_SWATCH;
+        }
+
+        @Override
+        public OptionViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            if (viewType == VIEW_TYPE_OPTION) {
+                TextView view = new TextView(parent.getContext());
+                view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, mSize));
+                view.setGravity(Gravity.CENTER);
+                final OptionViewHolder holder = new OptionViewHolder(view);
+                view.setOnClickListener(new View.OnClickListener() {
+                    @Override
+                    public void onClick(View v) {
+                        int option = holder.getAdapterPosition();
+                        if (option == OPTION_THEME_MODE) {
+                            pickNextOption(option);
+                            /* the font rows follow the theme mode */
+                            notifyItemRangeChanged(OPTION_THEME_MODE, OPTION_FONT_SIZE + 1);
+                        } else if (option != RecyclerView.NO_POSITION) {
+                            pickNextOption(option);
+                            notifyItemChanged(option);
+                        }
+                    }
+                });
+                return holder;
+            }
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, mSize));
+            final OptionViewHolder holder = new OptionViewHolder(view);
+            view.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    pick(holder.color);
+                }
+            });
+            return holder;
+        }
+
+        @Override
+        public void onBindViewHolder(OptionViewHolder holder, int position) {
+            if (position < OPTIONS) {
+                ((TextView) holder.itemView).setText(getOptionText(position));
+                return;
+            }
+            holder.color = SwatchGrid.getColor(position - OPTIONS);
+            holder.itemView.setBackgroundColor(holder.color);
+        }
+
+        @Override
+        public int getItemCount() {
+            return OPTIONS + SwatchGrid.size();
+        }
     }
 }
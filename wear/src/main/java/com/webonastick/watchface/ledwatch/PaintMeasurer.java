@@ -0,0 +1,41 @@
+package com.webonastick.watchface.ledwatch;
+
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+import com.webonastick.watchface.TypefaceRegistry;
+
+/**
+ * Measures text for a {@link LayoutSolver} with an Android Paint.
+ * Fonts are asset filenames, loaded through a registry, or
+ * {@link #SANS_SERIF}.
+ */
+public class PaintMeasurer implements LayoutSolver.Measurer {
+    /* the system's sans-serif rather than an asset */
+    public static final String SANS_SERIF = "sans-serif";
+
+    private final TypefaceRegistry typefaceRegistry;
+    private final Paint paint = new Paint();
+    private final Rect bounds = new Rect();
+
+    public PaintMeasurer(TypefaceRegistry typefaceRegistry) {
+        this.typefaceRegistry = typefaceRegistry;
+        /* so layouts don't shift when low-bit ambient mode turns antialiasing off */
+        paint.setAntiAlias(true);
+    }
+
+    @Override
+    public LayoutSolver.Metrics measure(String font, float textSize, float textSkewX, String text) {
+        paint.setTypeface(SANS_SERIF.equals(font) ? Typeface.SANS_SERIF : typefaceRegistry.get(font));
+        paint.setTextSize(textSize);
+        paint.setTextSkewX(textSkewX);
+        float width = paint.measureText(text);
+        paint.getTextBounds(text, 0, 1, bounds);
+        float firstCharHeight = bounds.height();
+        paint.getTextBounds(text, 0, text.length(), bounds);
+        float boundsWidth = bounds.width();
+        Paint.FontMetrics fontMetrics = paint.getFontMetrics();
+        return new LayoutSolver.Metrics(width, firstCharHeight, boundsWidth, fontMetrics.top, fontMetrics.bottom);
+    }
+}
@@ -0,0 +1,128 @@
+package com.webonastick.watchface.ledwatch;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prepares renderers for themes a tap may switch to next on a
+ * background thread, so that the switch itself only has to swap a
+ * prepared renderer in.  They get their paints, glyph atlases, and
+ * background, but no frame bitmap; the renderer they replace hands
+ * over its own.  Prepared renderers nobody takes are released after
+ * a few seconds, as most of the time nobody is about to tap.
+ * <p>
+ * Renderers are handed to the background thread as soon as they are
+ * passed to {@link #prewarm}, and only come back to the main thread
+ * when they are done.  Everything else is called on the main thread.
+ */
+public class RendererPrewarmer {
+    private static final String TAG = "RendererPrewarmer";
+
+    private static final long IDLE_MILLIS = 10000;
+
+    private static class Prepared {
+        final LEDWatchFaceRenderer renderer;
+        final WatchFaceState state;
+
+        Prepared(LEDWatchFaceRenderer renderer, WatchFaceState state) {
+            this.renderer = renderer;
+            this.state = state;
+        }
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private HandlerThread thread = null;
+    private Handler backgroundHandler = null;
+
+    private final List<Prepared> prepared = new ArrayList<Prepared>();
+
+    /* renderers still on the background thread */
+    private int pending = 0;
+
+    private final Runnable releaseIdle = new Runnable() {
+        @Override
+        public void run() {
+            clear();
+        }
+    };
+
+    /* renderers from before the last clear() are thrown away when done */
+    private int generation = 0;
+
+    public void prewarm(final LEDWatchFaceRenderer renderer, final WatchFaceState state) {
+        if (thread == null) {
+            thread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            backgroundHandler = new Handler(thread.getLooper());
+        }
+        final int prewarmGeneration = generation;
+        pending += 1;
+        backgroundHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                renderer.prepare(state);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        pending -= 1;
+                        if (prewarmGeneration != generation) {
+                            renderer.destroy();
+                            return;
+                        }
+                        prepared.add(new Prepared(renderer, state));
+                        mainHandler.removeCallbacks(releaseIdle);
+                        mainHandler.postDelayed(releaseIdle, IDLE_MILLIS);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Returns a prepared renderer for a theme, color, custom color, and font, or
+     * null if none is ready.  The caller takes ownership of it.
+     */
+    public LEDWatchFaceRenderer take(Utility.LEDWatchThemeMode themeMode,
+                                     Utility.LEDWatchThemeColor themeColor,
+                                     int customColor, DSEGFont font) {
+        for (int i = 0; i < prepared.size(); i += 1) {
+            WatchFaceState state = prepared.get(i).state;
+            if (state.getThemeMode() == themeMode &&
+                    state.getThemeColor() == themeColor &&
+                    state.getCustomColor() == customColor &&
+                    state.getFont().equals(font)) {
+                return prepared.remove(i).renderer;
+            }
+        }
+        return null;
+    }
+
+    /* true if nothing is prepared or being prepared, e.g. once idle ones were released */
+    public boolean isEmpty() {
+        return pending == 0 && prepared.isEmpty();
+    }
+
+    /* drops prepared renderers, e.g. when the configuration changes */
+    public void clear() {
+        mainHandler.removeCallbacks(releaseIdle);
+        generation += 1;
+        for (Prepared p : prepared) {
+            p.renderer.destroy();
+        }
+        prepared.clear();
+    }
+
+    public void quit() {
+        clear();
+        if (thread != null) {
+            thread.quitSafely();
+            thread = null;
+            backgroundHandler = null;
+        }
+    }
+}
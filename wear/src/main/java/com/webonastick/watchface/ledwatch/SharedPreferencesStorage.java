@@ -0,0 +1,39 @@
+package com.webonastick.watchface.ledwatch;
+
+import android.content.SharedPreferences;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores a {@link PreferenceStore}'s values as strings in
+ * SharedPreferences, under the keys the watch face always used.
+ */
+public class SharedPreferencesStorage implements PreferenceStore.Storage {
+    private final SharedPreferences sharedPreferences;
+
+    public SharedPreferencesStorage(SharedPreferences sharedPreferences) {
+        this.sharedPreferences = sharedPreferences;
+    }
+
+    @Override
+    public Map<String, String> read() {
+        Map<String, String> values = new HashMap<String, String>();
+        for (Map.Entry<String, ?> entry : sharedPreferences.getAll().entrySet()) {
+            if (entry.getValue() instanceof String) {
+                values.put(entry.getKey(), (String) entry.getValue());
+            }
+        }
+        return values;
+    }
+
+    /* already off the main thread, so commit() rather than queueing another apply() */
+    @Override
+    public void write(Map<String, String> values) {
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            editor.putString(entry.getKey(), entry.getValue());
+        }
+        editor.commit();
+    }
+}
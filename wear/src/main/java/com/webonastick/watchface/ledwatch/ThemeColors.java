@@ -0,0 +1,80 @@
+package com.webonastick.watchface.ledwatch;
+
+/**
+ * Theme colors and faint segment alphas, indexed by theme mode and
+ * theme color.
+ * <p>
+ * Values come from {@link ThemeColorTable}, which the build generates
+ * from res/values/colors.xml.  They're arranged by enum ordinal once,
+ * when this class loads, so looking one up is an array index.
+ */
+public final class ThemeColors {
+    private ThemeColors() {
+    }
+
+    private static final int COLOR_WHITE = 0xffffffff;
+    private static final int COLOR_BLACK = 0xff000000;
+
+    /* background in LCD mode, foreground in the others */
+    private static final int[][] THEME_COLORS;
+    private static final int[][] FAINT_ALPHAS;
+
+    /* ambient mode draws white on black whatever the theme */
+    private static final int AMBIENT_FAINT_ALPHA_FOREGROUND = FaintAlpha.fromForeground(COLOR_WHITE);
+    private static final int AMBIENT_FAINT_ALPHA_BACKGROUND = FaintAlpha.fromBackground(COLOR_BLACK);
+
+    static {
+        Utility.LEDWatchThemeMode[] themeModes = Utility.LEDWatchThemeMode.values();
+        Utility.LEDWatchThemeColor[] themeColors = Utility.LEDWatchThemeColor.values();
+        THEME_COLORS = new int[themeModes.length][themeColors.length];
+        FAINT_ALPHAS = new int[themeModes.length][themeColors.length];
+        for (Utility.LEDWatchThemeMode themeMode : themeModes) {
+            for (Utility.LEDWatchThemeColor themeColor : themeColors) {
+                int index = indexOf(getResourceName(themeMode, themeColor));
+                int color;
+                int faintAlpha;
+                if (index >= 0) {
+                    color = ThemeColorTable.COLORS[index];
+                    faintAlpha = ThemeColorTable.FAINT_ALPHAS[index];
+                } else {
+                    color = COLOR_WHITE;
+                    faintAlpha = isLCD(themeMode) ? FaintAlpha.fromBackground(color) : FaintAlpha.fromForeground(color);
+                }
+                THEME_COLORS[themeMode.ordinal()][themeColor.ordinal()] = color;
+                FAINT_ALPHAS[themeMode.ordinal()][themeColor.ordinal()] = faintAlpha;
+            }
+        }
+    }
+
+    /* e.g. "background_color_lcd_red" */
+    static String getResourceName(Utility.LEDWatchThemeMode themeMode, Utility.LEDWatchThemeColor themeColor) {
+        return themeMode.colorResourceType + "_color_" + themeMode.resourceName + "_" + themeColor.resourceName;
+    }
+
+    private static int indexOf(String name) {
+        for (int i = 0; i < ThemeColorTable.NAMES.length; i += 1) {
+            if (ThemeColorTable.NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isLCD(Utility.LEDWatchThemeMode themeMode) {
+        return themeMode == Utility.LEDWatchThemeMode.LCD;
+    }
+
+    /* white for combinations colors.xml doesn't have */
+    public static int getThemeColor(Utility.LEDWatchThemeMode themeMode, Utility.LEDWatchThemeColor themeColor) {
+        return THEME_COLORS[themeMode.ordinal()][themeColor.ordinal()];
+    }
+
+    /* alpha level (0 to 255) for faint segments */
+    public static int getFaintAlpha(Utility.LEDWatchThemeMode themeMode, Utility.LEDWatchThemeColor themeColor,
+                                    boolean ambient) {
+        if (ambient) {
+            return isLCD(themeMode) ? AMBIENT_FAINT_ALPHA_BACKGROUND : AMBIENT_FAINT_ALPHA_FOREGROUND;
+        }
+        return FAINT_ALPHAS[themeMode.ordinal()][themeColor.ordinal()];
+    }
+}
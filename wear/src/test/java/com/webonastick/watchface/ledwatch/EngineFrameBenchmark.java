@@ -0,0 +1,345 @@
+package com.webonastick.watchface.ledwatch;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.support.wearable.watchface.CanvasWatchFaceService;
+import android.support.wearable.watchface.WatchFaceService;
+import android.view.DisplayCutout;
+import android.view.Surface;
+import android.view.SurfaceHolder;
+import android.view.WindowInsets;
+
+import com.webonastick.ledwatch.R;
+import com.webonastick.watchface.FrameMetrics;
+import com.webonastick.watchface.SystemStateMonitor;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Draws frames with the real watch face engine, off screen, for every
+ * theme mode, theme color, and ambient/low-bit combination on round
+ * 390 and 454 and square 320 pixel screens, and writes the mean, 95th
+ * and 99th percentile frame times and the bytes allocated per frame
+ * to the file named by the engineFrameBenchmark.report system
+ * property.  Skipped unless that is set, as by
+ * {@code ./gradlew :wear:testDebugUnitTest -PengineFrameBenchmark},
+ * which writes wear/build/reports/engine-frame-benchmark.json.
+ * <p>
+ * Each frame is an onDraw with a new hour, from moving the engine to
+ * another time zone before it, so the renderer has changed fields to
+ * draw.  The first frame, which also solves the layout and draws the
+ * background, is reported on its own.  Robolectric's Canvas doesn't
+ * rasterize, so the times are for comparing commits, not for what a
+ * watch takes.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28, qualifiers = "xhdpi")
+public class EngineFrameBenchmark {
+    private static final String REPORT_PROPERTY = "engineFrameBenchmark.report";
+
+    private static final int WARMUP_FRAMES = 20;
+    private static final int FRAMES = 100;
+
+    private static final int[][] SURFACES = {
+            /* width, height, round */
+            { 390, 390, 1 },
+            { 454, 454, 1 },
+            { 320, 320, 0 },
+    };
+
+    /* whole hours from UTC, so each one shows a different hour */
+    private static final TimeZone[] TIME_ZONES = new TimeZone[24];
+
+    static {
+        for (int i = 0; i < TIME_ZONES.length; i += 1) {
+            TIME_ZONES[i] = new SimpleTimeZone((i - 11) * 3600000, "benchmark" + i);
+        }
+    }
+
+    private LEDWatchFace mService;
+    private JSONArray mResults;
+
+    @Before
+    public void setUp() {
+        mService = Robolectric.setupService(LEDWatchFace.class);
+        mResults = new JSONArray();
+    }
+
+    @After
+    public void tearDown() {
+        mService.onDestroy();
+    }
+
+    /* a surface that hands out a canvas on an off-screen bitmap */
+    private static class OffscreenSurfaceHolder implements SurfaceHolder {
+        private final Bitmap mBitmap;
+        private final Canvas mCanvas;
+        private final Rect mFrame;
+
+        OffscreenSurfaceHolder(int width, int height) {
+            mBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            mCanvas = new Canvas(mBitmap);
+            mFrame = new Rect(0, 0, width, height);
+        }
+
+        Canvas getCanvas() {
+            return mCanvas;
+        }
+
+        Rect getFrame() {
+            return mFrame;
+        }
+
+        void recycle() {
+            mBitmap.recycle();
+        }
+
+        @Override
+        public void addCallback(Callback callback) {
+        }
+
+        @Override
+        public void removeCallback(Callback callback) {
+        }
+
+        @Override
+        public boolean isCreating() {
+            return false;
+        }
+
+        @Override
+        public void setType(int type) {
+        }
+
+        @Override
+        public void setFixedSize(int width, int height) {
+        }
+
+        @Override
+        public void setSizeFromLayout() {
+        }
+
+        @Override
+        public void setFormat(int format) {
+        }
+
+        @Override
+        public void setKeepScreenOn(boolean screenOn) {
+        }
+
+        @Override
+        public Canvas lockCanvas() {
+            return mCanvas;
+        }
+
+        @Override
+        public Canvas lockCanvas(Rect dirty) {
+            return mCanvas;
+        }
+
+        @Override
+        public void unlockCanvasAndPost(Canvas canvas) {
+        }
+
+        @Override
+        public Rect getSurfaceFrame() {
+            return mFrame;
+        }
+
+        @Override
+        public Surface getSurface() {
+            return null;
+        }
+    }
+
+    /* the public constructors can't make round insets */
+    private static WindowInsets createWindowInsets(boolean round) throws Exception {
+        Constructor<WindowInsets> constructor = WindowInsets.class.getDeclaredConstructor(
+                Rect.class, Rect.class, Rect.class, boolean.class, boolean.class, DisplayCutout.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(new Rect(), null, new Rect(), round, false, null);
+    }
+
+    private static Bundle createProperties(boolean lowBitAmbient) {
+        Bundle properties = new Bundle();
+        properties.putBoolean(WatchFaceService.PROPERTY_LOW_BIT_AMBIENT, lowBitAmbient);
+        properties.putBoolean(WatchFaceService.PROPERTY_BURN_IN_PROTECTION, false);
+        return properties;
+    }
+
+    /* what the engine loads in onCreate, written the way the engine writes it */
+    private void saveTheme(Utility.LEDWatchThemeMode themeMode, Utility.LEDWatchThemeColor themeColor)
+            throws InterruptedException {
+        Map<Utility.LEDWatchThemeMode, Utility.LEDWatchThemeColor> themeColors =
+                new EnumMap<Utility.LEDWatchThemeMode, Utility.LEDWatchThemeColor>(Utility.LEDWatchThemeMode.class);
+        for (Utility.LEDWatchThemeMode mode : Utility.LEDWatchThemeMode.values()) {
+            themeColors.put(mode, themeColor);
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        PreferenceStore preferenceStore = new PreferenceStore(new SharedPreferencesStorage(
+                mService.getSharedPreferences(mService.getString(R.string.preference_file_key), Context.MODE_PRIVATE)
+        ), executor, 0);
+        preferenceStore.save(themeMode, themeColors);
+        preferenceStore.close();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long percentile(long[] sortedNanos, int percent) {
+        int index = (sortedNanos.length * percent + 99) / 100 - 1;
+        return sortedNanos[Math.max(0, index)];
+    }
+
+    private void drawFrames(CanvasWatchFaceService.Engine engine, OffscreenSurfaceHolder holder,
+                            String surface, Utility.LEDWatchThemeMode themeMode,
+                            Utility.LEDWatchThemeColor themeColor, boolean ambient, boolean lowBitAmbient)
+            throws JSONException {
+        SystemStateMonitor.Listener listener = (SystemStateMonitor.Listener) engine;
+        Canvas canvas = holder.getCanvas();
+        Rect bounds = holder.getFrame();
+
+        long start = System.nanoTime();
+        engine.onDraw(canvas, bounds);
+        long firstFrameNanos = System.nanoTime() - start;
+
+        for (int i = 0; i < WARMUP_FRAMES; i += 1) {
+            listener.onTimeZoneChanged(TIME_ZONES[i % TIME_ZONES.length]);
+            engine.onDraw(canvas, bounds);
+        }
+
+        long[] nanos = new long[FRAMES];
+        long totalNanos = 0;
+        long allocatedBytes = 0;
+        for (int i = 0; i < FRAMES; i += 1) {
+            listener.onTimeZoneChanged(TIME_ZONES[i % TIME_ZONES.length]);
+            long bytesBefore = getAllocatedBytes();
+            start = System.nanoTime();
+            engine.onDraw(canvas, bounds);
+            nanos[i] = System.nanoTime() - start;
+            allocatedBytes += getAllocatedBytes() - bytesBefore;
+            totalNanos += nanos[i];
+        }
+        Arrays.sort(nanos);
+
+        JSONObject result = new JSONObject();
+        result.put("surface", surface);
+        result.put("themeMode", themeMode.name());
+        result.put("themeColor", themeColor.name());
+        result.put("ambient", ambient);
+        result.put("lowBitAmbient", lowBitAmbient);
+        result.put("firstFrameNanos", firstFrameNanos);
+        result.put("meanNanos", totalNanos / FRAMES);
+        result.put("p95Nanos", percentile(nanos, 95));
+        result.put("p99Nanos", percentile(nanos, 99));
+        result.put("bytesPerFrame", allocatedBytes / FRAMES);
+        mResults.put(result);
+    }
+
+    private void measure(int width, int height, boolean round,
+                         Utility.LEDWatchThemeMode themeMode, Utility.LEDWatchThemeColor themeColor)
+            throws Exception {
+        saveTheme(themeMode, themeColor);
+        String surface = (round ? "round " : "square ") + width;
+        OffscreenSurfaceHolder holder = new OffscreenSurfaceHolder(width, height);
+        CanvasWatchFaceService.Engine engine = mService.onCreateEngine();
+        engine.onCreate(holder);
+        try {
+            engine.onApplyWindowInsets(createWindowInsets(round));
+            engine.onSurfaceChanged(holder, 0, width, height);
+
+            engine.onPropertiesChanged(createProperties(false));
+            engine.onAmbientModeChanged(false);
+            drawFrames(engine, holder, surface, themeMode, themeColor, false, false);
+
+            engine.onAmbientModeChanged(true);
+            drawFrames(engine, holder, surface, themeMode, themeColor, true, false);
+
+            engine.onPropertiesChanged(createProperties(true));
+            drawFrames(engine, holder, surface, themeMode, themeColor, true, true);
+
+            /* what dump() reports from a watch */
+            FrameMetrics.Snapshot metrics = mService.getFrameMetricsSnapshot();
+            assertTrue(metrics.getCount() >= 3 * (1 + WARMUP_FRAMES + FRAMES));
+            assertTrue(metrics.isAmbient(metrics.size() - 1));
+            assertTrue(metrics.getDrawNanosPercentile(50) > 0);
+        } finally {
+            engine.onDestroy();
+            holder.recycle();
+        }
+    }
+
+    private void writeReport(File file) throws IOException, JSONException {
+        JSONObject report = new JSONObject();
+        report.put("warmupFrames", WARMUP_FRAMES);
+        report.put("frames", FRAMES);
+        report.put("results", mResults);
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("cannot create " + dir);
+        }
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            out.write(report.toString(2));
+            out.write('\n');
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void everyThemeAndDisplayMode() throws Exception {
+        String report = System.getProperty(REPORT_PROPERTY);
+        assumeTrue("set " + REPORT_PROPERTY + " to run", report != null);
+        for (int[] surface : SURFACES) {
+            for (Utility.LEDWatchThemeMode themeMode : Utility.LEDWatchThemeMode.values()) {
+                for (Utility.LEDWatchThemeColor themeColor : Utility.LEDWatchThemeColor.values()) {
+                    measure(surface[0], surface[1], surface[2] != 0, themeMode, themeColor);
+                }
+            }
+        }
+        writeReport(new File(report));
+
+        assertEquals(SURFACES.length * Utility.LEDWatchThemeMode.values().length *
+                Utility.LEDWatchThemeColor.values().length * 3, mResults.length());
+        for (int i = 0; i < mResults.length(); i += 1) {
+            JSONObject result = mResults.getJSONObject(i);
+            assertTrue(result.toString(), result.getLong("meanNanos") > 0);
+        }
+    }
+}
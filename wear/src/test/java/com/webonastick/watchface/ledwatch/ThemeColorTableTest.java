@@ -0,0 +1,50 @@
+package com.webonastick.watchface.ledwatch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ThemeColorTableTest {
+    @Test
+    public void faintAlphasMatchTheRuntimeCalculation() {
+        assertEquals(ThemeColorTable.NAMES.length, ThemeColorTable.COLORS.length);
+        assertEquals(ThemeColorTable.NAMES.length, ThemeColorTable.FAINT_ALPHAS.length);
+        for (int i = 0; i < ThemeColorTable.NAMES.length; i += 1) {
+            String name = ThemeColorTable.NAMES[i];
+            int color = ThemeColorTable.COLORS[i];
+            int expected = name.startsWith("background_")
+                    ? FaintAlpha.fromBackground(color)
+                    : FaintAlpha.fromForeground(color);
+            assertEquals(name, expected, ThemeColorTable.FAINT_ALPHAS[i]);
+        }
+    }
+
+    @Test
+    public void everyThemeHasEveryColor() {
+        for (Utility.LEDWatchThemeMode themeMode : Utility.LEDWatchThemeMode.values()) {
+            for (Utility.LEDWatchThemeColor themeColor : Utility.LEDWatchThemeColor.values()) {
+                String name = ThemeColors.getResourceName(themeMode, themeColor);
+                int index = -1;
+                for (int i = 0; i < ThemeColorTable.NAMES.length; i += 1) {
+                    if (ThemeColorTable.NAMES[i].equals(name)) {
+                        index = i;
+                    }
+                }
+                assertTrue(name, index >= 0);
+                assertEquals(name, ThemeColorTable.COLORS[index], ThemeColors.getThemeColor(themeMode, themeColor));
+                assertEquals(name, ThemeColorTable.FAINT_ALPHAS[index],
+                        ThemeColors.getFaintAlpha(themeMode, themeColor, false));
+            }
+        }
+    }
+
+    @Test
+    public void spotChecks() {
+        assertEquals(0xffff0000, ThemeColors.getThemeColor(Utility.LEDWatchThemeMode.LED, Utility.LEDWatchThemeColor.RED));
+        assertEquals(0xffbfbfbf, ThemeColors.getThemeColor(Utility.LEDWatchThemeMode.LCD, Utility.LEDWatchThemeColor.WHITE));
+        /* ambient mode is white on black whatever the color */
+        assertEquals(FaintAlpha.fromForeground(0xffffffff),
+                ThemeColors.getFaintAlpha(Utility.LEDWatchThemeMode.LED, Utility.LEDWatchThemeColor.RED, true));
+    }
+}